@@ -1,8 +1,14 @@
 
 package com.esotericsoftware.controller.device;
 
+/**
+ * Compensates for the area around the center of a stick that the game ignores. Results are looked up in tables that are computed
+ * from {@link #computeOutput(float, float, float[])} and {@link #computeInput(float, float, float[])} the first time they are
+ * needed and again after the size changes. Looked up values are within about 0.005 of the computed values.
+ */
 public abstract class Deadzone {
 	protected float sizeX, sizeY;
+	private transient volatile Table outputTable, inputTable;
 
 	public float getSizeX () {
 		return sizeX;
@@ -24,46 +30,128 @@ public abstract class Deadzone {
 	 * Converts the specified x and y percentage values to stick deflection values that ignore the deadzone. IE, non-zero values
 	 * will return the first stick deflection in that direction that is outside the deadzone.
 	 * @return Returns an 2 element array containing the x and y deflection values.
+	 * @see #getOutput(float, float, float[])
 	 */
-	abstract public float[] getOutput (float x, float y);
+	public float[] getOutput (float x, float y) {
+		float[] deflection = new float[2];
+		getOutput(x, y, deflection);
+		return deflection;
+	}
+
+	/**
+	 * Same as {@link #getOutput(float, float)}, but stores the x and y deflection values in the first two elements of the
+	 * specified array instead of allocating one.
+	 */
+	public void getOutput (float x, float y, float[] deflection) {
+		Table table = outputTable;
+		if (table == null || table.sizeX != sizeX || table.sizeY != sizeY) outputTable = table = new Table(this, true);
+		if (!table.lookup(x, y, deflection)) computeOutput(x, y, deflection);
+	}
+
+	/**
+	 * Computes the values returned by {@link #getOutput(float, float, float[])} without using a lookup table. This is slower, but
+	 * exact.
+	 */
+	abstract public void computeOutput (float x, float y, float[] deflection);
 
 	/**
 	 * Converts the specified x and y stick deflection values to percentage values that ignore the deadzone. IE, values that within
 	 * the deadzone will return zero, values outside the deadzone will return the perctage between the edge of the deadzone and 1.
+	 * @see #getInput(float, float, float[])
 	 */
-	abstract public float[] getInput (float x, float y);
+	public float[] getInput (float x, float y) {
+		float[] deflection = new float[2];
+		getInput(x, y, deflection);
+		return deflection;
+	}
 
+	/**
+	 * Same as {@link #getInput(float, float)}, but stores the x and y values in the first two elements of the specified array
+	 * instead of allocating one.
+	 */
+	public void getInput (float x, float y, float[] deflection) {
+		Table table = inputTable;
+		if (table == null || table.sizeX != sizeX || table.sizeY != sizeY) inputTable = table = new Table(this, false);
+		if (!table.lookup(x, y, deflection)) computeInput(x, y, deflection);
+	}
+
+	/**
+	 * Computes the values returned by {@link #getInput(float, float, float[])} without using a lookup table. This is slower, but
+	 * exact.
+	 */
+	abstract public void computeInput (float x, float y, float[] deflection);
+
+	/**
+	 * The square deadzone treats each axis separately, so it is computed directly instead of using lookup tables.
+	 */
 	static public class Square extends Deadzone {
-		public float[] getOutput (float x, float y) {
-			float[] deflection = new float[2];
+		public void getOutput (float x, float y, float[] deflection) {
+			computeOutput(x, y, deflection);
+		}
+
+		public void getInput (float x, float y, float[] deflection) {
+			computeInput(x, y, deflection);
+		}
+
+		public void computeOutput (float x, float y, float[] deflection) {
 			deflection[0] = (1 - sizeX) * x + sizeX * Math.signum(x);
 			deflection[1] = (1 - sizeY) * y + sizeY * Math.signum(y);
-			if (deflection[0] != 0 || deflection[1] != 0) System.out.println("output : " + deflection[0] + ", " + deflection[1]);
-			return deflection;
 		}
 
-		public float[] getInput (float x, float y) {
-			float[] deflection = new float[2];
+		public void computeInput (float x, float y, float[] deflection) {
 			float absX = Math.abs(x);
 			float absY = Math.abs(y);
 			deflection[0] = absX < sizeX ? 0 : (absX - sizeX) / (1 - sizeX) * Math.signum(x);
 			deflection[1] = absY < sizeY ? 0 : (absY - sizeY) / (1 - sizeY) * Math.signum(y);
-			if (deflection[0] != 0 || deflection[1] != 0) System.out.println("input : " + deflection[0] + ", " + deflection[1]);
-			return deflection;
 		}
 	}
 
 	static public class Round extends Deadzone {
-		public float[] getOutput (float x, float y) {
-			float[] deflection = new float[2];
+		// Values this close to the edge of the deadzone, relative to its size, are always computed.
+		static private final float EDGE_BAND = 1e-3f;
+
+		/**
+		 * Values inside the deadzone ellipse are zero without using the lookup table, since interpolating across the edge of the
+		 * deadzone gives small non-zero values for some points just inside it.
+		 */
+		public void getInput (float x, float y, float[] deflection) {
+			if (sizeX > 0 && sizeY > 0) {
+				float dx = x / sizeX, dy = y / sizeY;
+				float distance = dx * dx + dy * dy;
+				if (distance < 1 - EDGE_BAND) {
+					deflection[0] = 0;
+					deflection[1] = 0;
+					return;
+				}
+				if (distance < 1 + EDGE_BAND) {
+					computeInput(x, y, deflection);
+					return;
+				}
+			}
+			super.getInput(x, y, deflection);
+		}
+
+		/**
+		 * Returns the distance from the center to the edge of the deadzone ellipse at the specified angle.
+		 */
+		private float getDeadzoneDistance (float sin, float cos) {
+			float deadzoneX = sizeY * cos;
+			float deadzoneY = sizeX * sin;
+			float length = (float)Math.sqrt(deadzoneX * deadzoneX + deadzoneY * deadzoneY);
+			// Avoids NaN when the deadzone has no size.
+			if (length == 0) return 0;
+			return sizeX * sizeY / length;
+		}
+
+		public void computeOutput (float x, float y, float[] deflection) {
+			deflection[0] = 0;
+			deflection[1] = 0;
 			if (x != 0 || y != 0) {
 				double angle = Math.atan2(y, x);
 				float sin = (float)Math.sin(angle);
 				float cos = (float)Math.cos(angle);
 
-				float deadzoneX = sizeY * cos;
-				float deadzoneY = sizeX * sin;
-				float deadzoneDist = sizeX * sizeY / (float)Math.sqrt(deadzoneX * deadzoneX + deadzoneY * deadzoneY);
+				float deadzoneDist = getDeadzoneDistance(sin, cos);
 
 				float maxDist;
 				if (Math.abs(x) > Math.abs(y))
@@ -80,22 +168,20 @@ public abstract class Deadzone {
 				deflection[0] = finalDist * cos;
 				deflection[1] = finalDist * sin;
 			}
-			return deflection;
 		}
 
-		public float[] getInput (float x, float y) {
-			float[] deflection = new float[2];
+		public void computeInput (float x, float y, float[] deflection) {
+			deflection[0] = 0;
+			deflection[1] = 0;
 			if (x != 0 || y != 0) {
 				float angle = (float)Math.atan2(y, x);
 				float sin = (float)Math.sin(angle);
 				float cos = (float)Math.cos(angle);
 
-				float deadzoneX = sizeY * cos;
-				float deadzoneY = sizeX * sin;
-				float deadzoneDist = sizeX * sizeY / (float)Math.sqrt(deadzoneX * deadzoneX + deadzoneY * deadzoneY);
+				float deadzoneDist = getDeadzoneDistance(sin, cos);
 
 				float dist = (float)Math.sqrt(x * x + y * y);
-				if (dist < Math.abs(deadzoneDist)) return deflection;
+				if (dist < Math.abs(deadzoneDist)) return;
 
 				float maxDist, nx, ny;
 				if (Math.abs(x) > Math.abs(y))
@@ -107,7 +193,83 @@ public abstract class Deadzone {
 				deflection[0] = maxDist * cos * percent;
 				deflection[1] = maxDist * sin * percent;
 			}
-			return deflection;
+		}
+	}
+
+	/**
+	 * Deadzone results sampled on a grid over the positive quadrant, which is mirrored for the other quadrants. Values between the
+	 * samples are interpolated bilinearly.
+	 */
+	static private class Table {
+		// The number of grid cells along each axis.
+		static private final int SIZE = 128;
+		static private final int ROW = (SIZE + 1) * 2;
+		// Samples on the axes are taken just off the axis, since the output jumps past the deadzone for any non-zero value.
+		static private final float EDGE = 1e-6f;
+		// Near the center the output direction changes too quickly with the angle to interpolate, so it is computed.
+		static private final int CENTER = 8;
+
+		final float sizeX, sizeY;
+		private final boolean output;
+		private final float[] values = new float[(SIZE + 1) * ROW];
+		// Cells where some corners are zero and some are not cross the edge of the deadzone, so they are computed.
+		private final boolean[] edgeCells = new boolean[SIZE * SIZE];
+
+		Table (Deadzone deadzone, boolean output) {
+			sizeX = deadzone.sizeX;
+			sizeY = deadzone.sizeY;
+			this.output = output;
+			float[] deflection = new float[2];
+			for (int iy = 0, i = 0; iy <= SIZE; iy++) {
+				float y = Math.max(EDGE, iy / (float)SIZE);
+				for (int ix = 0; ix <= SIZE; ix++, i += 2) {
+					float x = Math.max(EDGE, ix / (float)SIZE);
+					if (output)
+						deadzone.computeOutput(x, y, deflection);
+					else
+						deadzone.computeInput(x, y, deflection);
+					values[i] = deflection[0];
+					values[i + 1] = deflection[1];
+				}
+			}
+			if (!output) {
+				for (int iy = 0; iy < SIZE; iy++) {
+					for (int ix = 0; ix < SIZE; ix++) {
+						int i = iy * ROW + ix * 2;
+						int zeros = (isZero(i) ? 1 : 0) + (isZero(i + 2) ? 1 : 0) + (isZero(i + ROW) ? 1 : 0) + (isZero(i + ROW + 2) ? 1 : 0);
+						edgeCells[iy * SIZE + ix] = zeros > 0 && zeros < 4;
+					}
+				}
+			}
+		}
+
+		private boolean isZero (int index) {
+			return values[index] == 0 && values[index + 1] == 0;
+		}
+
+		/**
+		 * @return false if the values must be computed because they are outside the table, the output is not continuous there or the
+		 *         cell crosses the edge of the deadzone.
+		 */
+		boolean lookup (float x, float y, float[] deflection) {
+			float absX = Math.abs(x), absY = Math.abs(y);
+			if (absX > 1 || absY > 1) return false;
+			float fx = absX * SIZE, fy = absY * SIZE;
+			int ix = Math.min((int)fx, SIZE - 1), iy = Math.min((int)fy, SIZE - 1);
+			if (output) {
+				if (ix < CENTER && iy < CENTER && (x != 0 || y != 0)) return false;
+			} else if (edgeCells[iy * SIZE + ix]) return false;
+			float tx = fx - ix, ty = fy - iy;
+			float[] values = this.values;
+			int i = iy * ROW + ix * 2;
+			float bottomX = values[i] + (values[i + 2] - values[i]) * tx;
+			float bottomY = values[i + 1] + (values[i + 3] - values[i + 1]) * tx;
+			i += ROW;
+			float topX = values[i] + (values[i + 2] - values[i]) * tx;
+			float topY = values[i + 1] + (values[i + 3] - values[i + 1]) * tx;
+			deflection[0] = (bottomX + (topX - bottomX) * ty) * Math.signum(x);
+			deflection[1] = (bottomY + (topY - bottomY) * ty) * Math.signum(y);
+			return true;
 		}
 	}
 }
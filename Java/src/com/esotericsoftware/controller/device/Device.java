@@ -5,6 +5,7 @@ import static com.esotericsoftware.minlog.Log.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -14,6 +15,20 @@ import java.util.Map.Entry;
 import com.esotericsoftware.controller.util.Listeners;
 
 abstract public class Device {
+	static private final Button[] buttons = Button.values();
+	static private final Axis[] axes = Axis.values();
+	static private final int BUTTON_COUNT = buttons.length;
+	/**
+	 * The number of target handles.
+	 * @see #getHandle(Target)
+	 */
+	static public final int HANDLE_COUNT = buttons.length + axes.length;
+	static private final int NOT_WRITTEN = Integer.MIN_VALUE;
+	static private final int LEFT_STICK = (1 << Axis.leftStickX.ordinal()) | (1 << Axis.leftStickY.ordinal());
+	static private final int RIGHT_STICK = (1 << Axis.rightStickX.ordinal()) | (1 << Axis.rightStickY.ordinal());
+	static private final int LEFT_TRIGGER = 1 << Axis.leftTrigger.ordinal();
+	static private final int RIGHT_TRIGGER = 1 << Axis.rightTrigger.ordinal();
+
 	static private final HashMap<String, Target> nameToTarget = new HashMap();
 	static private List<Target> targets = new ArrayList();
 	static {
@@ -41,16 +56,33 @@ abstract public class Device {
 	private float[] axisStates = new float[Axis.values().length];
 	private float[] collectedAxisStates = new float[Axis.values().length];
 	private float[] axisDeflections = new float[Axis.values().length];
+	// The quantized value last written for each axis, or NOT_WRITTEN.
+	private int[] axisOutputs = new int[Axis.values().length];
+	// Bitmasks of button and axis ordinals set since the last apply.
+	private int dirtyButtons, dirtyAxes;
+	// Bitmasks of button and axis ordinals changed by the apply in progress, notified once it completes.
+	private int changedButtons, changedAxes;
+	private boolean applying;
+	// The states above are only modified while synchronized on the device. Readers use the published buffer instead, and the other
+	// buffer is written next so publishing does not allocate.
+	private final StateBuffer[] stateBuffers = {new StateBuffer(), new StateBuffer()};
+	private volatile StateBuffer published = stateBuffers[0];
+	private final Delta delta = new Delta();
 
 	private final Listeners<Listener> listeners = new Listeners(Listener.class);
 	private final Deadzone[] stickToDeadzone = new Deadzone[Stick.values().length];
+	private final ResponseCurve[] axisToCurve = new ResponseCurve[axes.length];
+	// Only used while synchronized on the device.
+	private final float[] deflection = new float[2];
 	private float mouseDeltaX, mouseDeltaY;
 	private Stick mouseDeltaStick;
 	private Map<String, Target> alternateNameToTarget = new HashMap();
 	private Map<String, String> targetToAlternateName = new HashMap();
+	private volatile OutputWriter writer;
 
 	public Device () {
 		super();
+		Arrays.fill(axisOutputs, NOT_WRITTEN);
 	}
 
 	/**
@@ -65,6 +97,115 @@ abstract public class Device {
 	 */
 	abstract protected void setAxis (Axis axis, float state) throws IOException;
 
+	/**
+	 * Returns the value the device would receive for the axis state, at the device's output resolution. An axis is only written
+	 * when this value changes, so axis changes too small for the device to represent are not sent. The default implementation
+	 * returns a distinct value for every float. Subclasses should override this to match how {@link #setAxis(Axis, float)}
+	 * converts the state. The returned value must not be Integer.MIN_VALUE.
+	 */
+	protected int quantize (Axis axis, float state) {
+		return Float.floatToIntBits(state);
+	}
+
+	/**
+	 * Called by the {@link OutputWriter} thread to write the latest button and axis states that changed since its last write.
+	 * Subclasses can override this to send the changes to the device together. This method is not synchronized on the device.
+	 * @param buttonChanges Bitmask of button ordinals that changed.
+	 * @param axisChanges Bitmask of axis ordinals that changed.
+	 * @throws IOException When communication with the device fails.
+	 */
+	protected void writeChanges (int buttonChanges, boolean[] buttonStates, int axisChanges, float[] axisStates)
+		throws IOException {
+		beginFrame();
+		try {
+			for (int i = 0, n = buttons.length; i < n; i++)
+				if ((buttonChanges & (1 << i)) != 0) setButton(buttons[i], buttonStates[i]);
+			for (int i = 0, n = axes.length; i < n; i++)
+				if ((axisChanges & (1 << i)) != 0) setAxis(axes[i], axisStates[i]);
+		} finally {
+			commitFrame();
+		}
+	}
+
+	/**
+	 * Called before a group of button and axis changes is written, such as by {@link #apply()}, {@link #reset()}, or the
+	 * {@link OutputWriter}. Subclasses can stage the changes given to {@link #setButton(Button, boolean)} and
+	 * {@link #setAxis(Axis, float)} until {@link #commitFrame()} and then send them to the device together. Changes made outside
+	 * of a frame must be sent immediately.
+	 */
+	protected void beginFrame () {
+	}
+
+	/**
+	 * Called after the changes in a frame have been given to the device, even if one of them failed.
+	 * @throws IOException When communication with the device fails.
+	 */
+	protected void commitFrame () throws IOException {
+	}
+
+	private void outputButton (Button button, boolean pressed) throws IOException {
+		OutputWriter writer = this.writer;
+		if (writer != null)
+			writer.setButton(button, pressed);
+		else
+			setButton(button, pressed);
+	}
+
+	/**
+	 * Writes the axis state unless the device would receive the same value as the last write. Must be called while synchronized on
+	 * the device.
+	 */
+	private void outputAxisChange (Axis axis, float state) throws IOException {
+		int output = quantize(axis, state);
+		int ordinal = axis.ordinal();
+		if (output == axisOutputs[ordinal]) return;
+		outputAxis(axis, state);
+		axisOutputs[ordinal] = output;
+	}
+
+	private void outputAxis (Axis axis, float state) throws IOException {
+		OutputWriter writer = this.writer;
+		if (writer != null)
+			writer.setAxis(axis, state);
+		else
+			setAxis(axis, state);
+	}
+
+	/**
+	 * When true, changes are written to the device by a separate thread and applying changes does not wait for the device. If a
+	 * button or axis changes again before its previous value was written, only the latest value is written. Errors writing to the
+	 * device are reported once by a later change or {@link OutputWriter#flush(int)}, and the changes that failed are written again.
+	 */
+	public void setAsync (boolean async) {
+		OutputWriter oldWriter;
+		synchronized (this) {
+			oldWriter = writer;
+			if (async == (oldWriter != null)) return;
+			writer = async ? new OutputWriter(this) : null;
+		}
+		if (oldWriter != null) {
+			// Changes already given to the writer are written before it is stopped.
+			try {
+				oldWriter.flush(1000);
+			} catch (IOException ex) {
+				if (WARN) warn("Unable to write pending changes to device: " + this, ex);
+			}
+			oldWriter.close();
+		}
+		if (DEBUG) debug("Asynchronous output " + (async ? "enabled." : "disabled."));
+	}
+
+	public boolean isAsync () {
+		return writer != null;
+	}
+
+	/**
+	 * Returns the writer used when asynchronous output is enabled, or null.
+	 */
+	public OutputWriter getOutputWriter () {
+		return writer;
+	}
+
 	/**
 	 * Sets the button state.
 	 * @throws IOException When communication with the device fails.
@@ -72,19 +213,24 @@ abstract public class Device {
 	public void apply (Button button, boolean pressed) throws IOException {
 		if (button == null) throw new IllegalArgumentException("button cannot be null.");
 
+		int ordinal = button.ordinal();
 		synchronized (this) {
-			int ordinal = button.ordinal();
 			if (buttonStates[ordinal] == pressed) return;
-			setButton(button, pressed);
+			outputButton(button, pressed);
 			buttonStates[ordinal] = pressed;
 			collectedButtonStates[ordinal] = pressed;
+			if (applying) {
+				changedButtons |= 1 << ordinal;
+				return;
+			}
+			publishState();
 		}
 
-		notifyButtonChanged(button, pressed);
+		notifyChanges(1 << ordinal, 0);
 	}
 
 	/**
-	 * Sets the axis state. Because only one axis is being modified, any deadzones are ignored.
+	 * Sets the axis state. Because only one axis is being modified, any deadzones and response curves are ignored.
 	 * @throws IOException When communication with the device fails.
 	 */
 	public void apply (Axis axis, float state) throws IOException {
@@ -100,30 +246,58 @@ abstract public class Device {
 			else if (state > 1) state = 1;
 		}
 
+		int ordinal = axis.ordinal();
 		synchronized (this) {
-			int ordinal = axis.ordinal();
 			if (axisStates[ordinal] == state) return;
-			setAxis(axis, state);
+			outputAxisChange(axis, state);
 			axisDeflections[ordinal] = state;
 			axisStates[ordinal] = state;
 			collectedAxisStates[ordinal] = state;
+			if (applying) {
+				changedAxes |= 1 << ordinal;
+				return;
+			}
+			publishState();
 		}
 
-		notifyAxisChanged(axis, state);
+		notifyChanges(0, 1 << ordinal);
 	}
 
-	private void notifyButtonChanged (Button button, boolean pressed) {
-		if (DEBUG) debug(button + ": " + pressed);
-		Listener[] listeners = this.listeners.toArray();
-		for (int i = 0, n = listeners.length; i < n; i++)
-			listeners[i].buttonChanged(button, pressed);
+	/**
+	 * Writes the current states to the buffer readers are not using and publishes it, unless they are unchanged since the last
+	 * publish. Must be called while synchronized on the device.
+	 */
+	private void publishState () {
+		StateBuffer published = this.published;
+		if (Arrays.equals(buttonStates, published.buttons) && Arrays.equals(axisStates, published.axes)
+			&& Arrays.equals(axisDeflections, published.deflections)) return;
+		StateBuffer next = published == stateBuffers[0] ? stateBuffers[1] : stateBuffers[0];
+		next.write(buttonStates, axisStates, axisDeflections);
+		this.published = next;
 	}
 
-	private void notifyAxisChanged (Axis axis, float state) {
-		if (DEBUG) debug(axis + ": " + state);
+	/**
+	 * Notifies the listeners once for all of the changes. Must not be called while synchronized on the device.
+	 */
+	private void notifyChanges (int buttonChanges, int axisChanges) {
+		if (DEBUG) {
+			State state = published;
+			for (int i = 0, n = buttons.length; i < n; i++)
+				if ((buttonChanges & (1 << i)) != 0) debug(buttons[i] + ": " + state.buttons[i]);
+			for (int i = 0, n = axes.length; i < n; i++)
+				if ((axisChanges & (1 << i)) != 0) debug(axes[i] + ": " + state.axes[i]);
+		}
 		Listener[] listeners = this.listeners.toArray();
-		for (int i = 0, n = listeners.length; i < n; i++)
-			listeners[i].axisChanged(axis, state);
+		if (listeners.length == 0) return;
+		// Notifications are serialized so a single delta can be reused.
+		synchronized (delta) {
+			// If another thread applied changes since, the listeners see its states.
+			published.read(delta.state);
+			delta.buttonChanges = buttonChanges;
+			delta.axisChanges = axisChanges;
+			for (int i = 0, n = listeners.length; i < n; i++)
+				listeners[i].changed(delta);
+		}
 	}
 
 	/**
@@ -188,6 +362,36 @@ abstract public class Device {
 		apply(target, state);
 	}
 
+	/**
+	 * Sets the button or axis state. If the target is an axis, it will be to 0 (false) or 1 (true). If the target is an axis,
+	 * because only one axis is being modified, any deadzones are ignored.
+	 * @param handle See {@link #getHandle(Target)}.
+	 * @throws IOException When communication with the device fails.
+	 */
+	public void apply (int handle, boolean pressed) throws IOException {
+		if (handle >= 0 && handle < BUTTON_COUNT)
+			apply(buttons[handle], pressed);
+		else if (handle >= BUTTON_COUNT && handle < HANDLE_COUNT)
+			apply(axes[handle - BUTTON_COUNT], pressed ? 1 : 0);
+		else
+			throw new IllegalArgumentException("Invalid target handle: " + handle);
+	}
+
+	/**
+	 * Sets the button or axis state. If the target is a button, it will be to not pressed (zero) or pressed (nonzero). If the
+	 * target is an axis, because only one axis is being modified, any deadzones are ignored.
+	 * @param handle See {@link #getHandle(Target)}.
+	 * @throws IOException When communication with the device fails.
+	 */
+	public void apply (int handle, float state) throws IOException {
+		if (handle >= 0 && handle < BUTTON_COUNT)
+			apply(buttons[handle], state != 0);
+		else if (handle >= BUTTON_COUNT && handle < HANDLE_COUNT)
+			apply(axes[handle - BUTTON_COUNT], state);
+		else
+			throw new IllegalArgumentException("Invalid target handle: " + handle);
+	}
+
 	/**
 	 * Sets the x and y axes for the specified stick.
 	 * @throws IOException When communication with the device fails.
@@ -220,7 +424,10 @@ abstract public class Device {
 	public void set (Button button, boolean pressed) {
 		if (button == null) throw new IllegalArgumentException("button cannot be null.");
 		synchronized (this) {
-			collectedButtonStates[button.ordinal()] = pressed;
+			int ordinal = button.ordinal();
+			if (collectedButtonStates[ordinal] == pressed) return;
+			collectedButtonStates[ordinal] = pressed;
+			dirtyButtons |= 1 << ordinal;
 		}
 	}
 
@@ -241,7 +448,10 @@ abstract public class Device {
 		}
 
 		synchronized (this) {
-			collectedAxisStates[axis.ordinal()] = state;
+			int ordinal = axis.ordinal();
+			if (collectedAxisStates[ordinal] == state) return;
+			collectedAxisStates[ordinal] = state;
+			dirtyAxes |= 1 << ordinal;
 		}
 	}
 
@@ -303,6 +513,34 @@ abstract public class Device {
 		set(target, state);
 	}
 
+	/**
+	 * Sets the button or axis state to be applied when {@link #apply()} is called. If the target is an axis, it will be to 0
+	 * (false) or 1 (true).
+	 * @param handle See {@link #getHandle(Target)}.
+	 */
+	public void set (int handle, boolean pressed) {
+		if (handle >= 0 && handle < BUTTON_COUNT)
+			set(buttons[handle], pressed);
+		else if (handle >= BUTTON_COUNT && handle < HANDLE_COUNT)
+			set(axes[handle - BUTTON_COUNT], pressed ? 1 : 0);
+		else
+			throw new IllegalArgumentException("Invalid target handle: " + handle);
+	}
+
+	/**
+	 * Sets the button or axis state to be applied when {@link #apply()} is called. If the target is a button, it will be to not
+	 * pressed (zero) or pressed (nonzero).
+	 * @param handle See {@link #getHandle(Target)}.
+	 */
+	public void set (int handle, float state) {
+		if (handle >= 0 && handle < BUTTON_COUNT)
+			set(buttons[handle], state != 0);
+		else if (handle >= BUTTON_COUNT && handle < HANDLE_COUNT)
+			set(axes[handle - BUTTON_COUNT], state);
+		else
+			throw new IllegalArgumentException("Invalid target handle: " + handle);
+	}
+
 	/**
 	 * Sets the x and y axes for the specified stick to be applied when {@link #apply()} is called.
 	 */
@@ -327,33 +565,44 @@ abstract public class Device {
 	}
 
 	/**
-	 * Returns the last state of the button set or waiting to be applied to the device.
+	 * Returns the last state of the button set or waiting to be applied to the device. This never blocks.
 	 */
 	public boolean get (Button button) {
-		if (button == null) throw new IllegalArgumentException("button cannot be null.");
-		return buttonStates[button.ordinal()];
+		return published.get(button);
 	}
 
 	/**
-	 * Returns the last state of the axis set or waiting to be applied to the device.
+	 * Returns the last state of the axis set or waiting to be applied to the device. This never blocks.
 	 */
 	public float get (Axis axis) {
-		if (axis == null) throw new IllegalArgumentException("axis cannot be null.");
-		return axisStates[axis.ordinal()];
+		return published.get(axis);
 	}
 
 	/**
 	 * Returns the last state of the button or axis set or waiting to be applied to the device. If the target is a button, either 0
-	 * (not pressed) or 1 (pressed) is returned.
+	 * (not pressed) or 1 (pressed) is returned. This never blocks.
 	 */
 	public float get (Target target) {
-		if (target == null) throw new IllegalArgumentException("target cannot be null.");
-		if (target instanceof Button)
-			return get((Button)target) ? 1 : 0;
-		else if (target instanceof Axis)
-			return get((Axis)target);
-		else
-			throw new IllegalArgumentException("target must be a button or axis.");
+		return published.get(target);
+	}
+
+	/**
+	 * Returns the last state of the button or axis set or waiting to be applied to the device. If the target is a button, either 0
+	 * (not pressed) or 1 (pressed) is returned. This never blocks.
+	 * @param handle See {@link #getHandle(Target)}.
+	 */
+	public float get (int handle) {
+		return published.get(handle);
+	}
+
+	/**
+	 * Returns a new snapshot of the states of all buttons and axes applied to the device. This never waits on the device. Use a single
+	 * snapshot to read multiple states that must be consistent with each other.
+	 */
+	public State getState () {
+		State state = new State();
+		published.read(state);
+		return state;
 	}
 
 	/**
@@ -381,21 +630,38 @@ abstract public class Device {
 	 * @throws IOException When communication with the device fails.
 	 */
 	public void reset () throws IOException {
-		for (Button button : Button.values())
-			setButton(button, false);
-		for (Axis axis : Axis.values())
-			setAxis(axis, 0);
-		for (int i = 0, n = buttonStates.length; i < n; i++)
-			buttonStates[i] = false;
-		for (int i = 0, n = axisStates.length; i < n; i++) {
-			axisStates[i] = 0;
-			axisDeflections[i] = 0;
+		synchronized (this) {
+			// With asynchronous output, the writer thread uses frames instead.
+			boolean frame = writer == null;
+			if (frame) beginFrame();
+			try {
+				for (Button button : Button.values())
+					outputButton(button, false);
+				for (Axis axis : Axis.values()) {
+					outputAxis(axis, 0);
+					axisOutputs[axis.ordinal()] = quantize(axis, 0);
+				}
+			} finally {
+				if (frame) commitFrame();
+			}
+			for (int i = 0, n = buttonStates.length; i < n; i++)
+				buttonStates[i] = false;
+			for (int i = 0, n = axisStates.length; i < n; i++) {
+				axisStates[i] = 0;
+				axisDeflections[i] = 0;
+			}
+			// The next apply restores the states that were set.
+			dirtyButtons = -1 >>> (32 - buttonStates.length);
+			dirtyAxes = -1 >>> (32 - axisStates.length);
+			publishState();
 		}
 
 		if (DEBUG) debug("Device reset.");
 		Listener[] listeners = this.listeners.toArray();
-		for (int i = 0, n = listeners.length; i < n; i++)
-			listeners[i].deviceReset();
+		synchronized (delta) {
+			for (int i = 0, n = listeners.length; i < n; i++)
+				listeners[i].deviceReset();
+		}
 	}
 
 	/**
@@ -421,7 +687,31 @@ abstract public class Device {
 
 	public void setDeadzone (Stick stick, Deadzone deadzone) {
 		if (stick == null) throw new IllegalArgumentException("stick cannot be null.");
-		stickToDeadzone[stick.ordinal()] = deadzone;
+		synchronized (this) {
+			stickToDeadzone[stick.ordinal()] = deadzone;
+			// The next apply uses the new deadzone.
+			dirtyAxes |= (1 << stick.getAxisX().ordinal()) | (1 << stick.getAxisY().ordinal());
+		}
+	}
+
+	/**
+	 * Sets the curve that shapes the axis state before any deadzone is applied. The curve's lookup table is computed now, so the
+	 * first apply is not slower.
+	 * @param curve May be null.
+	 */
+	public void setResponseCurve (Axis axis, ResponseCurve curve) {
+		if (axis == null) throw new IllegalArgumentException("axis cannot be null.");
+		if (curve != null) curve.compile();
+		synchronized (this) {
+			axisToCurve[axis.ordinal()] = curve;
+			// The next apply uses the new curve.
+			dirtyAxes |= 1 << axis.ordinal();
+		}
+	}
+
+	public ResponseCurve getResponseCurve (Axis axis) {
+		if (axis == null) throw new IllegalArgumentException("axis cannot be null.");
+		return axisToCurve[axis.ordinal()];
 	}
 
 	public void addMouseDelta (Stick stick, float mouseDeltaX, float mouseDeltaY) {
@@ -446,50 +736,121 @@ abstract public class Device {
 	}
 
 	/**
-	 * Applies changes to the device using the set methods.
+	 * Applies changes to the device using the set methods. Only buttons and axes set since the last apply are applied. Readers see
+	 * all of the changes at once and listeners are notified after the device monitor is released.
 	 * @throws IOException When communication with the device fails.
 	 */
-	public synchronized void apply () throws IOException {
-		Button[] buttons = Button.values();
-		for (int i = 0, n = collectedButtonStates.length; i < n; i++)
+	public void apply () throws IOException {
+		boolean applied = false;
+		int buttonChanges = 0, axisChanges = 0;
+		try {
+			synchronized (this) {
+				if ((dirtyButtons | dirtyAxes) == 0) return;
+				applying = true;
+				// With asynchronous output, the writer thread uses frames instead.
+				boolean frame = writer == null;
+				if (frame) beginFrame();
+				try {
+					try {
+						applyCollected();
+					} finally {
+						if (frame) commitFrame();
+					}
+				} finally {
+					applying = false;
+					buttonChanges = changedButtons;
+					axisChanges = changedAxes;
+					changedButtons = 0;
+					changedAxes = 0;
+					// Stick states can change without the deflection changing, so all states are compared.
+					publishState();
+					applied = true;
+				}
+			}
+		} finally {
+			// Changes applied before an exception are still notified.
+			if (applied && (buttonChanges | axisChanges) != 0) notifyChanges(buttonChanges, axisChanges);
+		}
+	}
+
+	private void applyCollected () throws IOException {
+		// A bit is cleared only after its target is applied, so targets not applied because of an exception are applied next time.
+		while (dirtyButtons != 0) {
+			int i = Integer.numberOfTrailingZeros(dirtyButtons);
 			apply(buttons[i], collectedButtonStates[i]);
+			dirtyButtons &= ~(1 << i);
+		}
+
+		if ((dirtyAxes & LEFT_STICK) != 0) {
+			applyDeadzones(Stick.left, collectedAxisStates[Axis.leftStickX.ordinal()],
+				collectedAxisStates[Axis.leftStickY.ordinal()]);
+			dirtyAxes &= ~LEFT_STICK;
+		}
+		if ((dirtyAxes & RIGHT_STICK) != 0) {
+			applyDeadzones(Stick.right, collectedAxisStates[Axis.rightStickX.ordinal()],
+				collectedAxisStates[Axis.rightStickY.ordinal()]);
+			dirtyAxes &= ~RIGHT_STICK;
+		}
+		if ((dirtyAxes & LEFT_TRIGGER) != 0) {
+			applyTrigger(Axis.leftTrigger);
+			dirtyAxes &= ~LEFT_TRIGGER;
+		}
+		if ((dirtyAxes & RIGHT_TRIGGER) != 0) {
+			applyTrigger(Axis.rightTrigger);
+			dirtyAxes &= ~RIGHT_TRIGGER;
+		}
+	}
 
-		applyDeadzones(Stick.left, collectedAxisStates[Axis.leftStickX.ordinal()], collectedAxisStates[Axis.leftStickY.ordinal()]);
-		applyDeadzones(Stick.right, collectedAxisStates[Axis.rightStickX.ordinal()],
-			collectedAxisStates[Axis.rightStickY.ordinal()]);
-		apply(Axis.leftTrigger, collectedAxisStates[Axis.leftTrigger.ordinal()]);
-		apply(Axis.rightTrigger, collectedAxisStates[Axis.rightTrigger.ordinal()]);
+	/**
+	 * Sets the trigger deflection after applying the response curve.
+	 * @throws IOException When communication with the device fails.
+	 */
+	private void applyTrigger (Axis axis) throws IOException {
+		int index = axis.ordinal();
+		float state = collectedAxisStates[index];
+		ResponseCurve curve = axisToCurve[index];
+		float deflection = curve == null ? state : curve.get(state);
+		if (deflection != axisDeflections[index]) {
+			outputAxisChange(axis, deflection);
+			axisDeflections[index] = deflection;
+			changedAxes |= 1 << index;
+		} else if (state != axisStates[index]) changedAxes |= 1 << index;
+		axisStates[index] = state;
 	}
 
 	/**
-	 * Sets the stick deflection after compensating for the deadzone.
+	 * Sets the stick deflection after applying the response curves and compensating for the deadzone.
 	 * @throws IOException When communication with the device fails.
 	 */
 	private void applyDeadzones (Stick stick, float targetX, float targetY) throws IOException {
-		float[] deflection;
-		Deadzone deadzone = stickToDeadzone[stick.ordinal()];
-		if (deadzone == null)
-			deflection = new float[] {targetX, targetY};
-		else
-			deflection = deadzone.getOutput(targetX, targetY);
-
 		Axis axisX = stick.getAxisX();
 		int indexX = axisX.ordinal();
-		float deflectionX = deflection[0];
+		Axis axisY = stick.getAxisY();
+		int indexY = axisY.ordinal();
+
+		float deflectionX = targetX, deflectionY = targetY;
+		ResponseCurve curve = axisToCurve[indexX];
+		if (curve != null) deflectionX = curve.get(deflectionX);
+		curve = axisToCurve[indexY];
+		if (curve != null) deflectionY = curve.get(deflectionY);
+		Deadzone deadzone = stickToDeadzone[stick.ordinal()];
+		if (deadzone != null) {
+			float[] deflection = this.deflection;
+			deadzone.getOutput(deflectionX, deflectionY, deflection);
+			deflectionX = deflection[0];
+			deflectionY = deflection[1];
+		}
+
 		if (deflectionX != axisDeflections[indexX]) {
-			setAxis(axisX, deflectionX);
+			outputAxisChange(axisX, deflectionX);
 			axisDeflections[indexX] = deflectionX;
-			notifyAxisChanged(axisX, targetX);
+			changedAxes |= 1 << indexX;
 		}
 		axisStates[indexX] = targetX;
-
-		Axis axisY = stick.getAxisY();
-		int indexY = axisY.ordinal();
-		float deflectionY = deflection[1];
 		if (deflectionY != axisDeflections[indexY]) {
-			setAxis(axisY, deflectionY);
+			outputAxisChange(axisY, deflectionY);
 			axisDeflections[indexY] = deflectionY;
-			notifyAxisChanged(axisY, targetY);
+			changedAxes |= 1 << indexY;
 		}
 		axisStates[indexY] = targetY;
 	}
@@ -515,6 +876,42 @@ abstract public class Device {
 		return target;
 	}
 
+	/**
+	 * Returns the handle for the target with the specified name, alias, or alternate name set for this device (case insensitive).
+	 * @see #getHandle(Target)
+	 */
+	public int getHandle (String targetName) {
+		if (targetName == null) throw new IllegalArgumentException("targetName cannot be null.");
+		String name = targetName.trim().toLowerCase();
+		Target target = nameToTarget.get(name);
+		if (target == null) {
+			target = alternateNameToTarget.get(name);
+			if (target == null) throw new IllegalArgumentException("Unknown target: " + targetName);
+		}
+		return getHandle(target);
+	}
+
+	/**
+	 * Returns a handle for the target that can be used to set, apply, and get its state without looking up the target by name or
+	 * type. Buttons and axes share a single range of handles from 0 to {@link #HANDLE_COUNT} - 1.
+	 */
+	static public int getHandle (Target target) {
+		if (target == null) throw new IllegalArgumentException("target cannot be null.");
+		if (target instanceof Button) return ((Button)target).ordinal();
+		if (target instanceof Axis) return BUTTON_COUNT + ((Axis)target).ordinal();
+		throw new IllegalArgumentException("target must be a button or axis.");
+	}
+
+	/**
+	 * Returns the target for the specified handle.
+	 * @see #getHandle(Target)
+	 */
+	static public Target getTarget (int handle) {
+		if (handle >= 0 && handle < BUTTON_COUNT) return buttons[handle];
+		if (handle >= BUTTON_COUNT && handle < HANDLE_COUNT) return axes[handle - BUTTON_COUNT];
+		throw new IllegalArgumentException("Invalid target handle: " + handle);
+	}
+
 	/**
 	 * Returns all targets.
 	 */
@@ -523,9 +920,136 @@ abstract public class Device {
 	}
 
 	/**
-	 * Listener to be notified when the device manipulates a button or axis.
+	 * A snapshot of the button and axis states applied to a device.
+	 * @see Device#getState()
+	 */
+	static public class State {
+		final boolean[] buttons = new boolean[Button.values().length];
+		final float[] axes = new float[Axis.values().length];
+		final float[] deflections = new float[Axis.values().length];
+
+		State () {
+		}
+
+		public boolean get (Button button) {
+			if (button == null) throw new IllegalArgumentException("button cannot be null.");
+			return buttons[button.ordinal()];
+		}
+
+		public float get (Axis axis) {
+			if (axis == null) throw new IllegalArgumentException("axis cannot be null.");
+			return axes[axis.ordinal()];
+		}
+
+		/**
+		 * If the target is a button, either 0 (not pressed) or 1 (pressed) is returned.
+		 */
+		public float get (Target target) {
+			if (target == null) throw new IllegalArgumentException("target cannot be null.");
+			if (target instanceof Button)
+				return get((Button)target) ? 1 : 0;
+			else if (target instanceof Axis)
+				return get((Axis)target);
+			else
+				throw new IllegalArgumentException("target must be a button or axis.");
+		}
+
+		/**
+		 * @param handle See {@link Device#getHandle(Target)}.
+		 */
+		public float get (int handle) {
+			if (handle >= 0 && handle < BUTTON_COUNT) return buttons[handle] ? 1 : 0;
+			if (handle >= BUTTON_COUNT && handle < HANDLE_COUNT) return axes[handle - BUTTON_COUNT];
+			throw new IllegalArgumentException("Invalid target handle: " + handle);
+		}
+
+		/**
+		 * Returns the value sent to the device for the axis, after any deadzone was applied.
+		 */
+		public float getDeflection (Axis axis) {
+			if (axis == null) throw new IllegalArgumentException("axis cannot be null.");
+			return deflections[axis.ordinal()];
+		}
+	}
+
+	/**
+	 * A state that is written in place. The buffer being written is not the published one, so the lock is only contended when a
+	 * reader still copies a buffer that was published two writes ago. A single value may be read without the lock, since it can't
+	 * be torn.
+	 */
+	static private class StateBuffer extends State {
+		synchronized void write (boolean[] buttons, float[] axes, float[] deflections) {
+			System.arraycopy(buttons, 0, this.buttons, 0, buttons.length);
+			System.arraycopy(axes, 0, this.axes, 0, axes.length);
+			System.arraycopy(deflections, 0, this.deflections, 0, deflections.length);
+		}
+
+		synchronized void read (State state) {
+			System.arraycopy(buttons, 0, state.buttons, 0, buttons.length);
+			System.arraycopy(axes, 0, state.axes, 0, axes.length);
+			System.arraycopy(deflections, 0, state.deflections, 0, deflections.length);
+		}
+	}
+
+	/**
+	 * The buttons and axes changed by a single apply.
+	 * @see Listener#changed(Delta)
+	 */
+	static public class Delta {
+		final State state = new State();
+		int buttonChanges, axisChanges;
+
+		/**
+		 * Returns the device state after the changes were applied. The state is reused, so it must not be kept after the listener
+		 * returns.
+		 */
+		public State getState () {
+			return state;
+		}
+
+		/**
+		 * Returns a bitmask of the ordinals of the buttons that changed.
+		 */
+		public int getButtonChanges () {
+			return buttonChanges;
+		}
+
+		/**
+		 * Returns a bitmask of the ordinals of the axes that changed.
+		 */
+		public int getAxisChanges () {
+			return axisChanges;
+		}
+
+		public boolean isChanged (Button button) {
+			if (button == null) throw new IllegalArgumentException("button cannot be null.");
+			return (buttonChanges & (1 << button.ordinal())) != 0;
+		}
+
+		public boolean isChanged (Axis axis) {
+			if (axis == null) throw new IllegalArgumentException("axis cannot be null.");
+			return (axisChanges & (1 << axis.ordinal())) != 0;
+		}
+	}
+
+	/**
+	 * Listener to be notified when the device manipulates a button or axis. Notifications for a device are never made
+	 * concurrently.
 	 */
 	static public class Listener {
+		/**
+		 * Called once for all the buttons and axes changed by an apply. The delta is reused, so it must not be kept after this method
+		 * returns. The default implementation calls {@link #buttonChanged(Button, boolean)} and {@link #axisChanged(Axis, float)} for
+		 * each change.
+		 */
+		public void changed (Delta delta) {
+			State state = delta.state;
+			for (int i = 0, n = buttons.length; i < n; i++)
+				if ((delta.buttonChanges & (1 << i)) != 0) buttonChanged(buttons[i], state.buttons[i]);
+			for (int i = 0, n = axes.length; i < n; i++)
+				if ((delta.axisChanges & (1 << i)) != 0) axisChanged(axes[i], state.axes[i]);
+		}
+
 		public void buttonChanged (Button button, boolean pressed) {
 		}
 
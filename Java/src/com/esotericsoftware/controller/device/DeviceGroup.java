@@ -0,0 +1,94 @@
+
+package com.esotericsoftware.controller.device;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A device that mirrors its button and axis changes to several member devices. Each member writes to its hardware on its own
+ * {@link OutputWriter} thread, so a slow member does not hold back the others. The latency of each member is available from
+ * its writer.
+ * <p>
+ * Deadzones are applied by the group, so the members should not have deadzones of their own. Closing the group closes the
+ * members.
+ * <p>
+ * There is no UI for building a group. It must be constructed in code or a script from already connected devices and then
+ * given to {@link com.esotericsoftware.controller.ui.swing.UI#setDevice(Device)}. The UI's PG3B and XIM menu settings are not
+ * applied to the members, so they must be configured before the group is created.
+ */
+public class DeviceGroup extends Device {
+	private final Device[] members;
+	private boolean inFrame;
+
+	public DeviceGroup (Device... members) {
+		if (members == null) throw new IllegalArgumentException("members cannot be null.");
+		if (members.length == 0) throw new IllegalArgumentException("members must contain at least one device.");
+		for (int i = 0; i < members.length; i++)
+			if (members[i] == null) throw new IllegalArgumentException("members cannot contain null.");
+		this.members = members.clone();
+		for (Device member : this.members)
+			member.setAsync(true);
+	}
+
+	public List<Device> getMembers () {
+		return Collections.unmodifiableList(Arrays.asList(members));
+	}
+
+	protected void setButton (Button button, boolean pressed) throws IOException {
+		for (Device member : members)
+			member.set(button, pressed);
+		if (!inFrame) applyMembers();
+	}
+
+	protected void setAxis (Axis axis, float state) throws IOException {
+		for (Device member : members)
+			member.set(axis, state);
+		if (!inFrame) applyMembers();
+	}
+
+	/**
+	 * Changes made until {@link #commitFrame()} are given to the members with a single apply.
+	 */
+	protected void beginFrame () {
+		inFrame = true;
+	}
+
+	protected void commitFrame () throws IOException {
+		inFrame = false;
+		applyMembers();
+	}
+
+	/**
+	 * Applies the changes to every member, even if applying to one of them fails.
+	 * @throws IOException The first error from a member.
+	 */
+	private void applyMembers () throws IOException {
+		IOException error = null;
+		for (Device member : members) {
+			try {
+				member.apply();
+			} catch (IOException ex) {
+				if (error == null) error = new IOException("Error applying changes to device: " + member, ex);
+			}
+		}
+		if (error != null) throw error;
+	}
+
+	public void close () {
+		for (Device member : members) {
+			member.setAsync(false);
+			member.close();
+		}
+	}
+
+	public String toString () {
+		StringBuilder buffer = new StringBuilder();
+		for (int i = 0; i < members.length; i++) {
+			if (i > 0) buffer.append(" + ");
+			buffer.append(members[i]);
+		}
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,233 @@
+
+package com.esotericsoftware.controller.device;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.esotericsoftware.controller.device.Device.Delta;
+import com.esotericsoftware.controller.device.Device.State;
+
+/**
+ * Records the button and axis states of each change applied to a device into a preallocated ring buffer outside of the Java
+ * heap. Recording a frame only writes a few values to the buffer, so it can be left running to diagnose latency problems after
+ * the fact. When the buffer is full the oldest frames are overwritten.
+ * <p>
+ * The buffer can be mapped to a file, so the most recent frames are available to {@link #writeCsv(File, Writer)} even if the
+ * application did not exit cleanly.
+ * @see Device#addListener(Device.Listener)
+ */
+public class OutputRecorder extends Device.Listener {
+	static private final int MAGIC = 0x50473352; // PG3R
+	static private final int VERSION = 1;
+	static final int HEADER_SIZE = 24;
+	static final int INDEX_CAPACITY = 8;
+	static final int INDEX_COUNT = 16;
+	/**
+	 * The number of bytes stored for each frame: the nanoTime, a bitmask of pressed buttons, a bitmask of the changed buttons and
+	 * axes, the state of each axis and the value sent for each axis after deadzones.
+	 */
+	static public final int FRAME_SIZE = 64;
+	// Set in the change bitmask for frames recorded when the device was reset.
+	static final int RESET = 1 << 31;
+
+	static private final Button[] buttons = Button.values();
+	static private final Axis[] axes = Axis.values();
+
+	private final ByteBuffer buffer;
+	private final int capacity;
+	private final RandomAccessFile file;
+	// Only modified by the thread notifying listeners, which the device serializes.
+	private long count;
+
+	/**
+	 * @param capacity The number of frames kept.
+	 */
+	public OutputRecorder (int capacity) {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be >0: " + capacity);
+		this.capacity = capacity;
+		file = null;
+		buffer = ByteBuffer.allocateDirect(HEADER_SIZE + capacity * FRAME_SIZE);
+		initialize();
+	}
+
+	/**
+	 * @param capacity The number of frames kept.
+	 * @param file The file the buffer is mapped to. It is overwritten.
+	 */
+	public OutputRecorder (int capacity, File file) throws IOException {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be >0: " + capacity);
+		if (file == null) throw new IllegalArgumentException("file cannot be null.");
+		this.capacity = capacity;
+		this.file = new RandomAccessFile(file, "rw");
+		int size = HEADER_SIZE + capacity * FRAME_SIZE;
+		this.file.setLength(size);
+		buffer = this.file.getChannel().map(MapMode.READ_WRITE, 0, size);
+		initialize();
+	}
+
+	private void initialize () {
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, VERSION);
+		buffer.putInt(INDEX_CAPACITY, capacity);
+		buffer.putInt(12, FRAME_SIZE);
+		buffer.putLong(INDEX_COUNT, 0);
+	}
+
+	public void changed (Delta delta) {
+		State state = delta.getState();
+		int pressed = 0;
+		boolean[] buttonStates = state.buttons;
+		for (int i = 0, n = buttonStates.length; i < n; i++)
+			if (buttonStates[i]) pressed |= 1 << i;
+		record(pressed, delta.getButtonChanges() | (delta.getAxisChanges() << 16), state.axes, state.deflections);
+	}
+
+	public void deviceReset () {
+		record(0, RESET, null, null);
+	}
+
+	private void record (int pressed, int changes, float[] axisStates, float[] deflections) {
+		long time = System.nanoTime();
+		ByteBuffer buffer = this.buffer;
+		int offset = HEADER_SIZE + (int)(count % capacity) * FRAME_SIZE;
+		buffer.putLong(offset, time);
+		buffer.putInt(offset + 8, pressed);
+		buffer.putInt(offset + 12, changes);
+		offset += 16;
+		for (int i = 0, n = axes.length; i < n; i++, offset += 4) {
+			buffer.putFloat(offset, axisStates == null ? 0 : axisStates[i]);
+			buffer.putFloat(offset + 24, deflections == null ? 0 : deflections[i]);
+		}
+		buffer.putLong(INDEX_COUNT, ++count);
+	}
+
+	/**
+	 * Returns the number of frames recorded, including those that have been overwritten.
+	 */
+	public long getFrameCount () {
+		return count;
+	}
+
+	public int getCapacity () {
+		return capacity;
+	}
+
+	/**
+	 * Writes the recorded frames to the writer as CSV, oldest first. Frames recorded while writing may be inconsistent.
+	 */
+	public void writeCsv (Writer writer) throws IOException {
+		if (writer == null) throw new IllegalArgumentException("writer cannot be null.");
+		writeCsv(getBuffer(), writer);
+	}
+
+	ByteBuffer getBuffer () {
+		return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Writes the frames in a file recorded by an OutputRecorder to the writer as CSV, oldest first.
+	 */
+	static public void writeCsv (File file, Writer writer) throws IOException {
+		if (file == null) throw new IllegalArgumentException("file cannot be null.");
+		if (writer == null) throw new IllegalArgumentException("writer cannot be null.");
+		writeCsv(map(file), writer);
+	}
+
+	/**
+	 * Maps a file recorded by an OutputRecorder and checks its header.
+	 */
+	static ByteBuffer map (File file) throws IOException {
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = input.getChannel();
+			// The mapping remains valid after the file is closed.
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) throw new IOException("Invalid output recording: " + file);
+			if (buffer.getInt(4) != VERSION) throw new IOException("Unsupported output recording version: " + buffer.getInt(4));
+			int capacity = buffer.getInt(INDEX_CAPACITY);
+			if (capacity <= 0 || buffer.getInt(12) != FRAME_SIZE || buffer.limit() < HEADER_SIZE + (long)capacity * FRAME_SIZE)
+				throw new IOException("Invalid output recording size: " + file);
+			return buffer;
+		} finally {
+			input.close();
+		}
+	}
+
+	static private void writeCsv (ByteBuffer buffer, Writer writer) throws IOException {
+		int capacity = buffer.getInt(INDEX_CAPACITY);
+		long count = buffer.getLong(INDEX_COUNT);
+
+		StringBuilder line = new StringBuilder(256);
+		line.append("nanoTime,micros,reset,pressed,changed");
+		for (Axis axis : axes)
+			line.append(',').append(axis.name());
+		for (Axis axis : axes)
+			line.append(',').append(axis.name()).append("Deflection");
+		writer.write(line.append("\r\n").toString());
+
+		long first = Math.max(0, count - capacity);
+		long firstTime = 0;
+		for (long frame = first; frame < count; frame++) {
+			int offset = HEADER_SIZE + (int)(frame % capacity) * FRAME_SIZE;
+			long time = buffer.getLong(offset);
+			if (frame == first) firstTime = time;
+			int pressed = buffer.getInt(offset + 8);
+			int changes = buffer.getInt(offset + 12);
+			line.setLength(0);
+			line.append(time);
+			line.append(',');
+			line.append((time - firstTime) / 1000);
+			line.append(',');
+			line.append((changes & RESET) != 0 ? 1 : 0);
+			line.append(',');
+			appendTargets(line, pressed, false);
+			line.append(',');
+			appendTargets(line, changes & ~RESET, true);
+			offset += 16;
+			for (int i = 0, n = axes.length * 2; i < n; i++, offset += 4)
+				line.append(',').append(buffer.getFloat(offset));
+			writer.write(line.append("\r\n").toString());
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Appends the names of the targets in the bitmask, separated by spaces.
+	 * @param axisBits If true, bits 16 and higher are axis ordinals.
+	 */
+	static private void appendTargets (StringBuilder line, int bits, boolean axisBits) {
+		boolean first = true;
+		for (int i = 0, n = buttons.length; i < n; i++) {
+			if ((bits & (1 << i)) == 0) continue;
+			if (!first) line.append(' ');
+			line.append(buttons[i].name());
+			first = false;
+		}
+		if (!axisBits) return;
+		for (int i = 0, n = axes.length; i < n; i++) {
+			if ((bits & (1 << (i + 16))) == 0) continue;
+			if (!first) line.append(' ');
+			line.append(axes[i].name());
+			first = false;
+		}
+	}
+
+	/**
+	 * Writes any recorded frames to the file, if the buffer is mapped to a file, and closes it. Frames must not be recorded after
+	 * the recorder is closed, so it should be removed from the device first.
+	 */
+	public void close () throws IOException {
+		if (file == null) return;
+		((MappedByteBuffer)buffer).force();
+		file.close();
+	}
+}
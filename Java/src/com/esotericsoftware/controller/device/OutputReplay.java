@@ -0,0 +1,218 @@
+
+package com.esotericsoftware.controller.device;
+
+import static com.esotericsoftware.minlog.Log.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays frames recorded by an {@link OutputRecorder} back to a device, using the same timing between frames. Each frame sets
+ * the recorded button and axis states and applies them, so the device applies its own deadzones.
+ * <p>
+ * Each frame is scheduled for an absolute time relative to the start of playback, so delays do not accumulate. The thread parks
+ * until shortly before a frame is due and then spins, which costs CPU but is accurate to a few microseconds. The lateness of each
+ * frame is available after playback.
+ */
+public class OutputReplay {
+	static private final Button[] buttons = Button.values();
+	static private final Axis[] axes = Axis.values();
+
+	private final long[] times;
+	private final int[] pressed;
+	private final boolean[] resets;
+	private final float[] axisStates;
+	private final long[] errors;
+	private float speed = 1;
+	private boolean loop;
+	private long spinNanos = 200000;
+	private volatile boolean stopped;
+	private volatile Thread thread;
+
+	/**
+	 * Uses the frames currently in the recorder. Frames recorded later are not played.
+	 */
+	public OutputReplay (OutputRecorder recorder) {
+		this(recorder.getBuffer());
+	}
+
+	/**
+	 * Uses the frames in a file written by an {@link OutputRecorder}.
+	 */
+	public OutputReplay (File file) throws IOException {
+		this(OutputRecorder.map(file));
+	}
+
+	private OutputReplay (ByteBuffer buffer) {
+		int capacity = buffer.getInt(OutputRecorder.INDEX_CAPACITY);
+		long count = buffer.getLong(OutputRecorder.INDEX_COUNT);
+		long first = Math.max(0, count - capacity);
+		int frameCount = (int)(count - first);
+		times = new long[frameCount];
+		pressed = new int[frameCount];
+		resets = new boolean[frameCount];
+		axisStates = new float[frameCount * axes.length];
+		errors = new long[frameCount];
+		for (int i = 0; i < frameCount; i++) {
+			int offset = OutputRecorder.HEADER_SIZE + (int)((first + i) % capacity) * OutputRecorder.FRAME_SIZE;
+			times[i] = buffer.getLong(offset);
+			pressed[i] = buffer.getInt(offset + 8);
+			resets[i] = (buffer.getInt(offset + 12) & OutputRecorder.RESET) != 0;
+			for (int ii = 0, n = axes.length; ii < n; ii++)
+				axisStates[i * n + ii] = buffer.getFloat(offset + 16 + ii * 4);
+		}
+	}
+
+	/**
+	 * Plays the frames to the device, blocking until all frames have been played or {@link #stop()} is called. If looping, the
+	 * first frame is played again one average frame interval after the last frame.
+	 * @throws IOException When communication with the device fails. Playback is stopped.
+	 * @throws IllegalStateException When looping and all frames have the same time, since they would be played without pause.
+	 */
+	public void play (Device device) throws IOException {
+		if (device == null) throw new IllegalArgumentException("device cannot be null.");
+		int frameCount = times.length;
+		if (frameCount == 0) return;
+		long firstTime = times[0];
+		long duration = times[frameCount - 1] - firstTime;
+		if (loop && duration == 0) throw new IllegalStateException("Unable to loop frames that all have the same time.");
+		// A loop is one interval longer than the recording, so the last frame is held about as long as the others.
+		long loopTime = duration + duration / (frameCount - 1);
+		if (INFO) info("Replaying " + frameCount + " frames to device: " + device);
+		stopped = false;
+		thread = Thread.currentThread();
+		try {
+			float speed = this.speed;
+			long start = System.nanoTime();
+			while (true) {
+				for (int i = 0; i < frameCount; i++) {
+					long deadline = start + (long)((times[i] - firstTime) / speed);
+					if (!await(deadline)) return;
+					errors[i] = System.nanoTime() - deadline;
+					playFrame(device, i);
+				}
+				if (!loop) break;
+				start += (long)(loopTime / speed);
+			}
+		} finally {
+			thread = null;
+		}
+		if (DEBUG) debug("Replay complete, average error: " + getAverageError() + "us, max: " + getMaxError() + "us");
+	}
+
+	private void playFrame (Device device, int frame) throws IOException {
+		if (resets[frame]) {
+			device.reset();
+			return;
+		}
+		int pressed = this.pressed[frame];
+		for (int i = 0, n = buttons.length; i < n; i++)
+			device.set(buttons[i], (pressed & (1 << i)) != 0);
+		for (int i = 0, n = axes.length; i < n; i++)
+			device.set(axes[i], axisStates[frame * n + i]);
+		device.apply();
+	}
+
+	/**
+	 * Parks until shortly before the deadline, then spins.
+	 * @return false if playback was stopped.
+	 */
+	private boolean await (long deadline) {
+		while (true) {
+			if (stopped) return false;
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) return true;
+			if (remaining > spinNanos)
+				LockSupport.parkNanos(remaining - spinNanos);
+			else {
+				while (System.nanoTime() < deadline) {
+				}
+				return !stopped;
+			}
+		}
+	}
+
+	/**
+	 * Causes {@link #play(Device)} to return before playing the next frame.
+	 */
+	public void stop () {
+		stopped = true;
+		Thread thread = this.thread;
+		if (thread != null) LockSupport.unpark(thread);
+	}
+
+	public int getFrameCount () {
+		return times.length;
+	}
+
+	/**
+	 * Returns the time in microseconds between the first and last frame.
+	 */
+	public long getDuration () {
+		if (times.length == 0) return 0;
+		return (times[times.length - 1] - times[0]) / 1000;
+	}
+
+	/**
+	 * Sets the playback speed. 2 plays the frames twice as fast. Default is 1.
+	 */
+	public void setSpeed (float speed) {
+		if (speed <= 0) throw new IllegalArgumentException("speed must be >0: " + speed);
+		this.speed = speed;
+	}
+
+	public float getSpeed () {
+		return speed;
+	}
+
+	/**
+	 * If true, {@link #play(Device)} plays the frames repeatedly until {@link #stop()} is called.
+	 */
+	public void setLoop (boolean loop) {
+		this.loop = loop;
+	}
+
+	public boolean getLoop () {
+		return loop;
+	}
+
+	/**
+	 * Sets how long before a frame is due that the thread stops parking and spins. Larger values are more accurate when the
+	 * operating system wakes parked threads late, but use more CPU. Default is 200 microseconds.
+	 */
+	public void setSpinTime (long micros) {
+		if (micros < 0) throw new IllegalArgumentException("micros must be >=0: " + micros);
+		spinNanos = micros * 1000;
+	}
+
+	/**
+	 * Returns how late in nanoseconds each frame was started during the last playback. Entries for frames that were not played are
+	 * from an earlier playback. When looping, the entries are from the last time each frame was played.
+	 */
+	public long[] getErrors () {
+		return errors.clone();
+	}
+
+	/**
+	 * Returns the average time in microseconds that frames were started late during the last playback.
+	 */
+	public float getAverageError () {
+		if (errors.length == 0) return 0;
+		long total = 0;
+		for (int i = 0, n = errors.length; i < n; i++)
+			total += errors[i];
+		return total / 1000f / errors.length;
+	}
+
+	/**
+	 * Returns the longest time in microseconds that a frame was started late during the last playback.
+	 */
+	public float getMaxError () {
+		long max = 0;
+		for (int i = 0, n = errors.length; i < n; i++)
+			max = Math.max(max, errors[i]);
+		return max / 1000f;
+	}
+}
@@ -0,0 +1,215 @@
+
+package com.esotericsoftware.controller.device;
+
+import static com.esotericsoftware.minlog.Log.*;
+
+import java.io.IOException;
+
+import com.esotericsoftware.controller.util.LatencyHistogram;
+
+/**
+ * Writes button and axis changes to a device on a separate thread, so the thread applying changes never waits on the device.
+ * Each button and axis has a single slot. If a target changes again before its previous value was written, the newer value
+ * replaces it and the device is only sent the latest state.
+ * @see Device#setAsync(boolean)
+ */
+public class OutputWriter {
+	static private final Button[] buttons = Button.values();
+	static private final Axis[] axes = Axis.values();
+	/**
+	 * The number of milliseconds to wait before writing changes again after a write failed, unless a new change arrives first.
+	 */
+	static public final int RETRY_DELAY = 100;
+
+	private final Device device;
+	private final Thread thread;
+	private volatile boolean running = true;
+
+	// Guarded by this writer.
+	private final boolean[] pendingButtons = new boolean[buttons.length];
+	private final float[] pendingAxes = new float[axes.length];
+	private int changedButtons, changedAxes;
+	private boolean writing;
+	private IOException error;
+	private long updateCount, coalescedCount, writeCount;
+	// The time the oldest change not yet taken by the writer thread was given to the writer.
+	private long pendingTime;
+	private final LatencyHistogram latencies = new LatencyHistogram();
+
+	// Only used by the writer thread.
+	private final boolean[] writeButtons = new boolean[buttons.length];
+	private final float[] writeAxes = new float[axes.length];
+
+	OutputWriter (Device device) {
+		this.device = device;
+		thread = new Thread("OutputWriter") {
+			public void run () {
+				try {
+					writeChanges();
+				} catch (InterruptedException ignored) {
+				}
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * @throws IOException When a previous write to the device failed. Each failure is thrown only once.
+	 */
+	synchronized void setButton (Button button, boolean pressed) throws IOException {
+		checkError();
+		if (changedButtons == 0 && changedAxes == 0) pendingTime = System.nanoTime();
+		int bit = 1 << button.ordinal();
+		if ((changedButtons & bit) != 0) coalescedCount++;
+		changedButtons |= bit;
+		pendingButtons[button.ordinal()] = pressed;
+		updateCount++;
+		notifyAll();
+	}
+
+	/**
+	 * @throws IOException When a previous write to the device failed. Each failure is thrown only once.
+	 */
+	synchronized void setAxis (Axis axis, float state) throws IOException {
+		checkError();
+		if (changedButtons == 0 && changedAxes == 0) pendingTime = System.nanoTime();
+		int bit = 1 << axis.ordinal();
+		if ((changedAxes & bit) != 0) coalescedCount++;
+		changedAxes |= bit;
+		pendingAxes[axis.ordinal()] = state;
+		updateCount++;
+		notifyAll();
+	}
+
+	/**
+	 * Throws the last write failure, if any, and clears it so it is reported only once.
+	 */
+	private void checkError () throws IOException {
+		if (error != null) {
+			IOException cause = error;
+			error = null;
+			throw new IOException("Error writing to device: " + device, cause);
+		}
+		if (!running) throw new IOException("Output writer is closed: " + device);
+	}
+
+	private void writeChanges () throws InterruptedException {
+		boolean failed = false;
+		while (true) {
+			int buttonChanges, axisChanges;
+			long startTime;
+			synchronized (this) {
+				writing = false;
+				notifyAll();
+				while (running && changedButtons == 0 && changedAxes == 0)
+					wait();
+				if (!running) return;
+				buttonChanges = changedButtons;
+				axisChanges = changedAxes;
+				startTime = pendingTime;
+				changedButtons = 0;
+				changedAxes = 0;
+				System.arraycopy(pendingButtons, 0, writeButtons, 0, buttons.length);
+				System.arraycopy(pendingAxes, 0, writeAxes, 0, axes.length);
+				writing = true;
+			}
+			try {
+				device.writeChanges(buttonChanges, writeButtons, axisChanges, writeAxes);
+			} catch (IOException ex) {
+				// Only the first of consecutive failures is logged as an error, a device that stays broken is retried quietly.
+				if (!failed) {
+					if (ERROR) error("Error writing to device: " + device, ex);
+				} else if (DEBUG) debug("Error writing to device: " + device, ex);
+				failed = true;
+				synchronized (this) {
+					// The failed changes are written again. A target that changed since then already has its bit set and its newer
+					// value pending, which replaces the failed value.
+					if (changedButtons == 0 && changedAxes == 0) pendingTime = startTime;
+					changedButtons |= buttonChanges;
+					changedAxes |= axisChanges;
+					error = ex;
+					writing = false;
+					notifyAll();
+					if (running) wait(RETRY_DELAY);
+				}
+				continue;
+			}
+			failed = false;
+			long latency = System.nanoTime() - startTime;
+			synchronized (this) {
+				writeCount += Integer.bitCount(buttonChanges) + Integer.bitCount(axisChanges);
+			}
+			latencies.add(latency);
+		}
+	}
+
+	/**
+	 * Blocks until all changes have been written to the device.
+	 * @param timeout The number of milliseconds to wait.
+	 * @throws IOException When a write failed or the changes were not written in time. Each failure is thrown only once, the
+	 *            changes that failed continue to be retried.
+	 */
+	public synchronized void flush (int timeout) throws IOException {
+		long endTime = System.currentTimeMillis() + timeout;
+		while (changedButtons != 0 || changedAxes != 0 || writing) {
+			checkError();
+			long remaining = endTime - System.currentTimeMillis();
+			if (remaining <= 0) throw new IOException("Timed out writing to device: " + device);
+			try {
+				wait(remaining);
+			} catch (InterruptedException ex) {
+				throw new IOException("Interrupted writing to device: " + device);
+			}
+		}
+		if (error != null) checkError();
+	}
+
+	/**
+	 * Stops the writer thread. Changes that have not yet been written are discarded.
+	 */
+	synchronized void close () {
+		running = false;
+		notifyAll();
+	}
+
+	public boolean isRunning () {
+		return running;
+	}
+
+	/**
+	 * Returns the number of button and axis changes given to the writer.
+	 */
+	public synchronized long getUpdateCount () {
+		return updateCount;
+	}
+
+	/**
+	 * Returns the number of changes that were replaced by a newer value before they were written.
+	 */
+	public synchronized long getCoalescedCount () {
+		return coalescedCount;
+	}
+
+	/**
+	 * Returns the number of button and axis changes written to the device.
+	 */
+	public synchronized long getWriteCount () {
+		return writeCount;
+	}
+
+	/**
+	 * Returns the times in microseconds from the first change of each write being given to the writer until it was written to the
+	 * device.
+	 */
+	public LatencyHistogram getLatencies () {
+		return latencies;
+	}
+
+	public synchronized void resetCounts () {
+		updateCount = 0;
+		coalescedCount = 0;
+		writeCount = 0;
+		latencies.reset();
+	}
+}
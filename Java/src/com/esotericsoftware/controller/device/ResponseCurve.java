@@ -0,0 +1,168 @@
+
+package com.esotericsoftware.controller.device;
+
+/**
+ * Shapes an axis value before it is sent to the device. The curve is defined for values from 0 to 1 and is mirrored for negative
+ * values. Values are looked up in a table that is computed from {@link #compute(float)} the first time it is needed and again
+ * after the curve changes.
+ * @see Device#setResponseCurve(Axis, ResponseCurve)
+ */
+public abstract class ResponseCurve {
+	// The number of table entries between 0 and 1.
+	static private final int SIZE = 256;
+	// The first entry is computed just above 0, since curves such as the anti-deadzone jump for any non-zero value.
+	static private final float EDGE = 1e-6f;
+
+	private transient volatile float[] table;
+
+	/**
+	 * Returns the shaped value for the specified axis value, which is clamped to -1 to 1.
+	 */
+	public float get (float value) {
+		float[] table = this.table;
+		if (table == null) table = compile();
+		if (value == 0) return 0;
+		float abs = Math.min(Math.abs(value), 1) * SIZE;
+		int index = Math.min((int)abs, SIZE - 1);
+		float result;
+		if (index == 0) {
+			// Curves such as exponents below 1 are too steep near 0 to interpolate.
+			result = compute(abs / SIZE);
+		} else
+			result = table[index] + (table[index + 1] - table[index]) * (abs - index);
+		return value < 0 ? -result : result;
+	}
+
+	/**
+	 * Computes the lookup table used by {@link #get(float)}. This is done automatically when the table is first needed, but can be
+	 * called beforehand so the first lookup is not slower.
+	 */
+	public float[] compile () {
+		float[] table = new float[SIZE + 1];
+		for (int i = 0; i <= SIZE; i++)
+			table[i] = compute(Math.max(EDGE, i / (float)SIZE));
+		this.table = table;
+		return table;
+	}
+
+	/**
+	 * Discards the lookup table. Subclasses must call this when the curve changes.
+	 */
+	protected void invalidate () {
+		table = null;
+	}
+
+	/**
+	 * Computes the shaped value without using a lookup table.
+	 * @param value Between 0 and 1.
+	 * @return Between 0 and 1.
+	 */
+	abstract public float compute (float value);
+
+	/**
+	 * Straight lines between points. Values between 0 and the first point and between the last point and 1 are on lines to (0,0)
+	 * and (1,1).
+	 */
+	static public class PiecewiseLinear extends ResponseCurve {
+		private float[] points = new float[0];
+
+		/**
+		 * @return Pairs of x and y values.
+		 */
+		public float[] getPoints () {
+			return points;
+		}
+
+		/**
+		 * @param points Pairs of x and y values, ordered by x.
+		 */
+		public void setPoints (float[] points) {
+			if (points == null) throw new IllegalArgumentException("points cannot be null.");
+			if (points.length % 2 != 0) throw new IllegalArgumentException("points must contain pairs of values: " + points.length);
+			this.points = points;
+			invalidate();
+		}
+
+		public float compute (float value) {
+			float[] points = this.points;
+			float lastX = 0, lastY = 0;
+			// An odd trailing value from a hand edited config is ignored.
+			for (int i = 0, n = points.length & ~1; i <= n; i += 2) {
+				float x = i < n ? points[i] : 1, y = i < n ? points[i + 1] : 1;
+				if (value <= x) {
+					if (x == lastX) return y;
+					return lastY + (y - lastY) * (value - lastX) / (x - lastX);
+				}
+				lastX = x;
+				lastY = y;
+			}
+			return 1;
+		}
+	}
+
+	/**
+	 * Raises the value to a power. Exponents above 1 give finer control near the center, below 1 give finer control near the edge.
+	 */
+	static public class Exponential extends ResponseCurve {
+		private float exponent = 1;
+
+		public float getExponent () {
+			return exponent;
+		}
+
+		public void setExponent (float exponent) {
+			if (exponent <= 0) throw new IllegalArgumentException("exponent must be >0: " + exponent);
+			this.exponent = exponent;
+			invalidate();
+		}
+
+		public float compute (float value) {
+			return (float)Math.pow(value, exponent);
+		}
+	}
+
+	/**
+	 * Blends between a straight line and a smoothstep curve, which is flatter near the center and the edge.
+	 */
+	static public class SCurve extends ResponseCurve {
+		private float strength = 1;
+
+		public float getStrength () {
+			return strength;
+		}
+
+		/**
+		 * @param strength 0 is a straight line and 1 is the full S-curve.
+		 */
+		public void setStrength (float strength) {
+			this.strength = strength;
+			invalidate();
+		}
+
+		public float compute (float value) {
+			float smooth = value * value * (3 - 2 * value);
+			return value + (smooth - value) * strength;
+		}
+	}
+
+	/**
+	 * Scales non-zero values to start at the edge of a deadzone, for games whose deadzone is the same size in every direction on
+	 * each axis. Unlike a {@link Deadzone}, each axis is shaped on its own.
+	 */
+	static public class AntiDeadzone extends ResponseCurve {
+		private float size;
+
+		public float getSize () {
+			return size;
+		}
+
+		public void setSize (float size) {
+			this.size = Math.abs(size);
+			invalidate();
+		}
+
+		public float compute (float value) {
+			return size + (1 - size) * value;
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.esotericsoftware.controller.misc;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reports the results of the check programs in this package. Each failed check is printed, and {@link #finish()} exits with a
+ * non-zero status if any failed.
+ */
+class Checks {
+	static private boolean passed = true;
+	static private com.sun.management.ThreadMXBean threads;
+
+	static void check (boolean condition, String message) {
+		if (condition) return;
+		System.out.println("FAILED: " + message);
+		passed = false;
+	}
+
+	/**
+	 * Returns true if no check has failed so far.
+	 */
+	static boolean passed () {
+		return passed;
+	}
+
+	/**
+	 * Prints whether all checks passed and exits with a non-zero status if any failed.
+	 */
+	static void finish () {
+		System.out.println(passed ? "Passed." : "FAILED.");
+		if (!passed) System.exit(1);
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread, or -1 if the VM does not count them. Uses the per-thread
+	 * allocation counter of the HotSpot VM.
+	 */
+	static long getAllocatedBytes () {
+		if (threads == null) {
+			threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+			if (threads.isThreadAllocatedMemorySupported()) threads.setThreadAllocatedMemoryEnabled(true);
+		}
+		if (!threads.isThreadAllocatedMemorySupported()) return -1;
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
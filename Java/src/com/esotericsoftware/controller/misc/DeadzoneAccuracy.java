@@ -0,0 +1,64 @@
+
+package com.esotericsoftware.controller.misc;
+
+import static com.esotericsoftware.controller.misc.Checks.*;
+
+import java.util.Random;
+
+import com.esotericsoftware.controller.device.Deadzone;
+
+/**
+ * Checks the values that {@link Deadzone} looks up in its tables against the computed values. Points that are computed to be inside
+ * the deadzone must be exactly zero and all other points must be within the tolerance. Exits with a non-zero status on failure.
+ */
+public class DeadzoneAccuracy {
+	static final int SAMPLES = 2000000;
+	static final float TOLERANCE = 0.005f;
+
+	public static void main (String[] args) throws Exception {
+		float[][] sizes = { {0, 0}, {0.2f, 0.2f}, {0.3f, 0.1f}, {0.1f, 0.3f}, {0.25f, 0}, {0.005f, 0.005f}, {0.5f, 0.5f}};
+		for (float[] size : sizes) {
+			Deadzone.Round deadzone = new Deadzone.Round();
+			deadzone.setSizeX(size[0]);
+			deadzone.setSizeY(size[1]);
+			checkAccuracy(deadzone, false);
+			checkAccuracy(deadzone, true);
+		}
+		finish();
+	}
+
+	static void checkAccuracy (Deadzone deadzone, boolean output) {
+		Random random = new Random(0);
+		float[] lookedUp = new float[2], computed = new float[2];
+		float maxError = 0, maxX = 0, maxY = 0;
+		int nonZero = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			float x = random.nextFloat() * 2 - 1, y = random.nextFloat() * 2 - 1;
+			// Also check points on the axes and near the deadzone edge.
+			if (i % 10 == 0) x = 0;
+			if (i % 11 == 0) y = 0;
+			if (i % 3 == 0) {
+				x *= deadzone.getSizeX() * 2;
+				y *= deadzone.getSizeY() * 2;
+			}
+			if (output) {
+				deadzone.getOutput(x, y, lookedUp);
+				deadzone.computeOutput(x, y, computed);
+			} else {
+				deadzone.getInput(x, y, lookedUp);
+				deadzone.computeInput(x, y, computed);
+				if (computed[0] == 0 && computed[1] == 0 && (lookedUp[0] != 0 || lookedUp[1] != 0)) nonZero++;
+			}
+			float error = Math.max(Math.abs(lookedUp[0] - computed[0]), Math.abs(lookedUp[1] - computed[1]));
+			if (error > maxError) {
+				maxError = error;
+				maxX = x;
+				maxY = y;
+			}
+		}
+		String result = String.format("%-6s %.3f x %.3f: max error %.6f at (%.4f, %.4f), %d non-zero inside deadzone",
+			output ? "output" : "input", deadzone.getSizeX(), deadzone.getSizeY(), maxError, maxX, maxY, nonZero);
+		check(maxError <= TOLERANCE && nonZero == 0, result);
+		System.out.println(result);
+	}
+}
@@ -0,0 +1,134 @@
+
+package com.esotericsoftware.controller.misc;
+
+import static com.esotericsoftware.controller.misc.Checks.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import com.esotericsoftware.controller.device.Axis;
+import com.esotericsoftware.controller.device.Deadzone;
+import com.esotericsoftware.controller.device.Stick;
+import com.esotericsoftware.controller.misc.OutputRecorderCheck.NullDevice;
+
+/**
+ * Checks that {@link Deadzone} lookups into a caller supplied array and applying sticks with deadzones to a device do not
+ * allocate or write to the console. Also checks that the overloads that return a new array give the same values. Exits with a
+ * non-zero status on failure.
+ */
+public class DeadzoneAllocationCheck {
+	static final int WARMUP = 100000;
+	static final int SAMPLES = 200000;
+
+	static long consoleBytes;
+
+	public static void main (String[] args) throws Exception {
+		if (getAllocatedBytes() == -1) {
+			System.out.println("Per-thread allocated bytes are not supported by this VM.");
+			System.exit(1);
+		}
+
+		Deadzone.Round round = new Deadzone.Round();
+		round.setSizeX(0.2f);
+		round.setSizeY(0.2f);
+		Deadzone.Round oval = new Deadzone.Round();
+		oval.setSizeX(0.3f);
+		oval.setSizeY(0.1f);
+		Deadzone.Square square = new Deadzone.Square();
+		square.setSizeX(0.2f);
+		square.setSizeY(0.2f);
+		Deadzone[] deadzones = {round, oval, square};
+		String[] names = {"round", "oval", "square"};
+
+		PrintStream out = System.out, err = System.err;
+		PrintStream console = new PrintStream(new OutputStream() {
+			public void write (int b) {
+				consoleBytes++;
+			}
+		});
+		long[] allocated = new long[deadzones.length + 1];
+		System.setOut(console);
+		System.setErr(console);
+		try {
+			for (int i = 0; i < deadzones.length; i++)
+				allocated[i] = lookups(deadzones[i]);
+			allocated[deadzones.length] = apply(round, square);
+		} finally {
+			System.setOut(out);
+			System.setErr(err);
+		}
+
+		for (int i = 0; i < deadzones.length; i++) {
+			check(allocated[i] == 0, names[i] + " lookups allocated " + allocated[i] + " bytes");
+			System.out.println(String.format("%-8s lookups allocated %d bytes", names[i], allocated[i]));
+			checkOverloads(names[i], deadzones[i]);
+		}
+		check(allocated[deadzones.length] == 0, "applying sticks allocated " + allocated[deadzones.length] + " bytes");
+		System.out.println("Applying sticks allocated " + allocated[deadzones.length] + " bytes.");
+		check(consoleBytes == 0, consoleBytes + " bytes were written to the console");
+		System.out.println(consoleBytes + " bytes written to the console.");
+		finish();
+	}
+
+	/**
+	 * Returns the bytes allocated for output and input lookups after warming up.
+	 */
+	static long lookups (Deadzone deadzone) {
+		float[] deflection = new float[2];
+		for (int i = 0; i < WARMUP; i++)
+			lookup(deadzone, i, deflection);
+		long start = getAllocatedBytes();
+		for (int i = 0; i < SAMPLES; i++)
+			lookup(deadzone, i, deflection);
+		return getAllocatedBytes() - start;
+	}
+
+	static void lookup (Deadzone deadzone, int i, float[] deflection) {
+		float x = value(i), y = value(i * 7 + 3);
+		deadzone.getOutput(x, y, deflection);
+		deadzone.getInput(x, y, deflection);
+	}
+
+	/**
+	 * Returns the bytes allocated applying both sticks to a device after warming up.
+	 */
+	static long apply (Deadzone left, Deadzone right) throws Exception {
+		NullDevice device = new NullDevice();
+		device.setDeadzone(Stick.left, left);
+		device.setDeadzone(Stick.right, right);
+		for (int i = 0; i < WARMUP; i++)
+			apply(device, i);
+		long start = getAllocatedBytes();
+		for (int i = 0; i < SAMPLES; i++)
+			apply(device, i);
+		return getAllocatedBytes() - start;
+	}
+
+	static void apply (NullDevice device, int i) throws Exception {
+		device.set(Axis.leftStickX, value(i));
+		device.set(Axis.leftStickY, value(i * 7 + 3));
+		device.set(Axis.rightStickX, value(i * 3 + 1));
+		device.set(Axis.rightStickY, value(i * 5 + 2));
+		device.apply();
+	}
+
+	static void checkOverloads (String name, Deadzone deadzone) {
+		float[] deflection = new float[2];
+		for (int i = 0; i < 1000; i++) {
+			float x = value(i), y = value(i * 7 + 3);
+			float[] output = deadzone.getOutput(x, y);
+			deadzone.getOutput(x, y, deflection);
+			check(output[0] == deflection[0] && output[1] == deflection[1], name + " output overloads differ at " + x + ", " + y);
+			float[] input = deadzone.getInput(x, y);
+			deadzone.getInput(x, y, deflection);
+			check(input[0] == deflection[0] && input[1] == deflection[1], name + " input overloads differ at " + x + ", " + y);
+		}
+	}
+
+	/**
+	 * Returns a value from -1 to 1 that varies with i.
+	 */
+	static float value (int i) {
+		return (i * 37 & 1023) / 511.5f - 1;
+	}
+}
@@ -0,0 +1,127 @@
+
+package com.esotericsoftware.controller.misc;
+
+import static com.esotericsoftware.controller.misc.Checks.*;
+
+import java.io.File;
+import java.io.StringWriter;
+
+import com.esotericsoftware.controller.device.Axis;
+import com.esotericsoftware.controller.device.Button;
+import com.esotericsoftware.controller.device.Device;
+import com.esotericsoftware.controller.device.OutputRecorder;
+import com.esotericsoftware.minlog.Log;
+
+/**
+ * Checks that an {@link OutputRecorder} mapped to a file keeps the most recent frames, that they are written to CSV, and that
+ * recording does not allocate or add more than a microsecond to each apply. Exits with a non-zero status on failure.
+ */
+public class OutputRecorderCheck {
+	static final int CAPACITY = 100;
+	static final int FRAMES = 250;
+	static final int TICKS = 200000;
+	static final long MAX_OVERHEAD = 1000;
+
+	public static void main (String[] args) throws Exception {
+		Log.set(Log.LEVEL_WARN);
+		checkRecording();
+		checkOverhead();
+		finish();
+	}
+
+	static void checkRecording () throws Exception {
+		File file = File.createTempFile("output", ".rec");
+		file.deleteOnExit();
+		NullDevice device = new NullDevice();
+		OutputRecorder recorder = new OutputRecorder(CAPACITY, file);
+		device.addListener(recorder);
+		for (int i = 1; i <= FRAMES; i++) {
+			device.set(Button.a, (i & 1) != 0);
+			device.set(Axis.leftTrigger, i / (float)FRAMES);
+			device.apply();
+		}
+		device.reset();
+		device.removeListener(recorder);
+		recorder.close();
+		check(recorder.getFrameCount() == FRAMES + 1, "recorded " + recorder.getFrameCount() + " frames");
+
+		StringWriter writer = new StringWriter();
+		OutputRecorder.writeCsv(file, writer);
+		String[] lines = writer.toString().split("\r\n");
+		check(lines.length == CAPACITY + 1, "CSV has " + lines.length + " lines");
+		String[] header = lines[0].split(",", -1);
+		int resetColumn = indexOf(header, "reset"), triggerColumn = indexOf(header, Axis.leftTrigger.name());
+		check(resetColumn != -1 && triggerColumn != -1, "CSV header is missing columns: " + lines[0]);
+		if (!passed()) return;
+		// The oldest frames were overwritten, so the CSV starts with the first frame kept.
+		for (int i = 1; i < lines.length; i++) {
+			String[] values = lines[i].split(",", -1);
+			int frame = FRAMES + 1 - CAPACITY + i;
+			if (frame > FRAMES) {
+				check(values[resetColumn].equals("1"), "last frame is not a reset: " + lines[i]);
+				continue;
+			}
+			float expected = frame / (float)FRAMES;
+			check(Float.parseFloat(values[triggerColumn]) == expected, "frame " + frame + " expected " + expected + ": " + lines[i]);
+		}
+		System.out.println("Checked " + (lines.length - 1) + " frames written to CSV.");
+	}
+
+	static void checkOverhead () throws Exception {
+		NullDevice device = new NullDevice();
+		time(device);
+		long without = time(device);
+		OutputRecorder recorder = new OutputRecorder(4096);
+		device.addListener(recorder);
+		time(device);
+
+		long start = getAllocatedBytes();
+		long with = time(device);
+		if (start != -1) {
+			long allocated = getAllocatedBytes() - start;
+			check(allocated == 0, "recording allocated " + allocated + " bytes");
+			System.out.println("Recording allocated " + allocated + " bytes.");
+		}
+		long overhead = (with - without) / TICKS;
+		check(overhead <= MAX_OVERHEAD, "recording added " + overhead + "ns to each apply");
+		System.out.println(String.format("Apply: %.1fns without recording, %.1fns with recording.", without / (float)TICKS, with
+			/ (float)TICKS));
+	}
+
+	/**
+	 * Returns the nanoseconds to apply changes to both sticks and a button for each tick.
+	 */
+	static long time (Device device) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < TICKS; i++) {
+			float value = (i & 255) / 255f;
+			device.set(Axis.leftStickX, value);
+			device.set(Axis.leftStickY, -value);
+			device.set(Axis.rightStickX, value);
+			device.set(Axis.rightStickY, -value);
+			device.set(Button.a, (i & 1) != 0);
+			device.apply();
+		}
+		return System.nanoTime() - start;
+	}
+
+	static int indexOf (String[] values, String value) {
+		for (int i = 0; i < values.length; i++)
+			if (values[i].equals(value)) return i;
+		return -1;
+	}
+
+	/**
+	 * A device that discards its output.
+	 */
+	static class NullDevice extends Device {
+		protected void setButton (Button button, boolean pressed) {
+		}
+
+		protected void setAxis (Axis axis, float state) {
+		}
+
+		public void close () {
+		}
+	}
+}
@@ -0,0 +1,27 @@
+
+package com.esotericsoftware.controller.misc;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import com.esotericsoftware.controller.device.OutputRecorder;
+
+/**
+ * Converts a file written by an {@link OutputRecorder} to CSV. The CSV is written to the second argument, or to standard out.
+ */
+public class OutputRecordingToCsv {
+	public static void main (String[] args) throws Exception {
+		if (args.length < 1 || args.length > 2) {
+			System.out.println("Usage: OutputRecordingToCsv <recording> [csv]");
+			System.exit(1);
+		}
+		Writer writer = args.length > 1 ? new FileWriter(args[1]) : new OutputStreamWriter(System.out);
+		try {
+			OutputRecorder.writeCsv(new File(args[0]), writer);
+		} finally {
+			if (args.length > 1) writer.close();
+		}
+	}
+}
@@ -0,0 +1,141 @@
+
+package com.esotericsoftware.controller.misc;
+
+import static com.esotericsoftware.controller.misc.Checks.*;
+
+import java.util.concurrent.locks.LockSupport;
+
+import com.esotericsoftware.controller.device.Axis;
+import com.esotericsoftware.controller.device.Button;
+import com.esotericsoftware.controller.device.Device;
+import com.esotericsoftware.controller.device.OutputRecorder;
+import com.esotericsoftware.controller.device.OutputReplay;
+import com.esotericsoftware.controller.misc.OutputRecorderCheck.NullDevice;
+import com.esotericsoftware.minlog.Log;
+
+/**
+ * Records frames and checks that an {@link OutputReplay} plays them back in order with the recorded states, never early, at a
+ * different speed, and looping until stopped. How late frames are depends on the machine, so it is printed but not checked.
+ * Exits with a non-zero status on failure.
+ */
+public class OutputReplayCheck {
+	static final int FRAMES = 200;
+	static final long FRAME_NANOS = 2000000;
+
+	public static void main (String[] args) throws Exception {
+		Log.set(Log.LEVEL_WARN);
+		OutputRecorder recorder = new OutputRecorder(FRAMES);
+		NullDevice device = new NullDevice();
+		device.addListener(recorder);
+		long start = System.nanoTime();
+		for (int i = 1; i <= FRAMES; i++) {
+			LockSupport.parkNanos(start + i * FRAME_NANOS - System.nanoTime());
+			device.set(Button.a, (i & 1) != 0);
+			device.set(Axis.leftTrigger, i / (float)FRAMES);
+			device.apply();
+		}
+		OutputReplay replay = new OutputReplay(recorder);
+		check(replay.getFrameCount() == FRAMES, "replay has " + replay.getFrameCount() + " frames");
+		// Warm up, so the errors are not from compiling the playback code.
+		replay.setSpeed(4);
+		replay.play(new NullDevice());
+
+		checkPlayback(replay, 1);
+		checkPlayback(replay, 2);
+		checkLoop(replay);
+		checkLoopWithoutDuration();
+		finish();
+	}
+
+	static void checkPlayback (OutputReplay replay, float speed) throws Exception {
+		NullDevice device = new NullDevice();
+		FrameListener listener = new FrameListener();
+		device.addListener(listener);
+		replay.setSpeed(speed);
+		replay.setLoop(false);
+		long start = System.nanoTime();
+		replay.play(device);
+		long elapsed = (System.nanoTime() - start) / 1000;
+
+		check(listener.count == FRAMES, "played " + listener.count + " frames");
+		check(listener.outOfOrder == 0, listener.outOfOrder + " frames were played out of order or with the wrong state");
+		checkNotEarly(replay);
+		long expected = (long)(replay.getDuration() / speed);
+		System.out.println(String.format("Speed %.1f: played %d frames in %dus, expected %dus, error avg %.1fus max %.1fus", speed,
+			listener.count, elapsed, expected, replay.getAverageError(), replay.getMaxError()));
+	}
+
+	static void checkLoop (final OutputReplay replay) throws Exception {
+		NullDevice device = new NullDevice();
+		// Stopped from the playing thread, so exactly this many frames are played.
+		final int stopAfter = FRAMES * 5 / 2;
+		FrameListener listener = new FrameListener() {
+			public void changed (Device.Delta delta) {
+				super.changed(delta);
+				if (count == stopAfter) replay.stop();
+			}
+		};
+		device.addListener(listener);
+		replay.setSpeed(4);
+		replay.setLoop(true);
+		long start = System.nanoTime();
+		replay.play(device);
+		long elapsed = (System.nanoTime() - start) / 1000000;
+		check(listener.count == stopAfter, "looped " + listener.count + " frames, expected " + stopAfter);
+		check(listener.outOfOrder == 0, listener.outOfOrder + " frames were looped out of order or with the wrong state");
+		checkNotEarly(replay);
+		// Frames are never played early, so each pass starts no sooner than the recording plus one average frame interval after
+		// the previous one. Without the interval, each pass would start about FRAME_NANOS / 4 sooner. The duration is only known
+		// to the microsecond and the schedule is rounded when divided by the speed, so a microsecond per pass is allowed.
+		int passes = (listener.count - 1) / FRAMES;
+		long duration = replay.getDuration() * 1000;
+		long passStart = listener.passStart - start, expected = passes * ((duration + duration / (FRAMES - 1)) / 4 - 1000);
+		check(passStart >= expected, "pass " + passes + " started at " + passStart / 1000 + "us, expected at least " + expected
+			/ 1000 + "us");
+		System.out.println(String.format("Looped %d frames in %dms, error avg %.1fus max %.1fus", listener.count, elapsed,
+			replay.getAverageError(), replay.getMaxError()));
+	}
+
+	/**
+	 * Checks that no frame was played before it was due.
+	 */
+	static void checkNotEarly (OutputReplay replay) {
+		long[] errors = replay.getErrors();
+		for (int i = 0; i < errors.length; i++)
+			check(errors[i] >= 0, "frame " + i + " was played " + -errors[i] / 1000 + "us early");
+	}
+
+	/**
+	 * Checks that a recording whose frames all have the same time is not looped, since it would be applied without pause.
+	 */
+	static void checkLoopWithoutDuration () throws Exception {
+		OutputRecorder recorder = new OutputRecorder(1);
+		NullDevice device = new NullDevice();
+		device.addListener(recorder);
+		device.set(Button.a, true);
+		device.apply();
+		OutputReplay replay = new OutputReplay(recorder);
+		replay.setLoop(true);
+		try {
+			replay.play(new NullDevice());
+			check(false, "looped a recording without duration");
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+	/**
+	 * Counts frames and checks that each one has the state of the next recorded frame.
+	 */
+	static class FrameListener extends Device.Listener {
+		int count, outOfOrder;
+		long passStart;
+
+		public void changed (Device.Delta delta) {
+			int frame = count % FRAMES + 1;
+			if (frame == 1) passStart = System.nanoTime();
+			Device.State state = delta.getState();
+			if (state.get(Axis.leftTrigger) != frame / (float)FRAMES || state.get(Button.a) != ((frame & 1) != 0)) outOfOrder++;
+			count++;
+		}
+	}
+}
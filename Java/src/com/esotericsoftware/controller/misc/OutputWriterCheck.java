@@ -0,0 +1,118 @@
+
+package com.esotericsoftware.controller.misc;
+
+import static com.esotericsoftware.controller.misc.Checks.*;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.esotericsoftware.controller.device.Axis;
+import com.esotericsoftware.controller.device.Button;
+import com.esotericsoftware.controller.device.OutputWriter;
+import com.esotericsoftware.controller.input.XboxController;
+import com.esotericsoftware.controller.pg3b.PG3B;
+import com.esotericsoftware.controller.pg3b.PG3BEmulator;
+import com.esotericsoftware.minlog.Log;
+
+/**
+ * Checks that an asynchronous {@link PG3B} keeps writing after a write to a {@link PG3BEmulator} fails once: the failure is
+ * reported once, the failed changes are written again without replacing a newer value, and later changes are still written.
+ * Exits with a non-zero status on failure.
+ */
+public class OutputWriterCheck {
+	public static void main (String[] args) throws Exception {
+		// The injected failure is logged as an error.
+		Log.set(Log.LEVEL_NONE);
+		PG3BEmulator emulator = new PG3BEmulator();
+		// Linear, so the controller's trigger value is the value written.
+		emulator.setWiperCurve(Axis.leftTrigger, 0, 1);
+		FailingOutputStream output = new FailingOutputStream(emulator.getOutputStream());
+		PG3B pg3b = new PG3B("Emulator", emulator.getInputStream(), output, 300);
+		XboxController controller = emulator.getController();
+		try {
+			pg3b.setAsync(true);
+			OutputWriter writer = pg3b.getOutputWriter();
+
+			// The write of 0.25 fails after the trigger was changed again, so 0.75 must be written and not 0.25.
+			output.failNextWrite();
+			pg3b.set(Axis.leftTrigger, 0.25f);
+			pg3b.apply();
+			check(output.blocked.await(1, TimeUnit.SECONDS), "write did not reach the device");
+			pg3b.set(Axis.leftTrigger, 0.75f);
+			pg3b.set(Button.a, true);
+			pg3b.apply();
+			output.release.countDown();
+
+			int errors = 0;
+			for (int i = 0; i < 2; i++) {
+				try {
+					writer.flush(2000);
+				} catch (IOException ex) {
+					errors++;
+				}
+			}
+			check(errors == 1, "failure reported " + errors + " times");
+			check(writer.isRunning(), "writer stopped after a failure");
+			check(controller.get(Button.a), "button changed before the failure was not written");
+			float trigger = controller.get(Axis.leftTrigger);
+			check(Math.abs(trigger - 0.75f) < 0.02f, "trigger is " + trigger + ", expected 0.75");
+
+			// The failure was reported, so later changes are written without an error.
+			try {
+				pg3b.set(Button.b, true);
+				pg3b.set(Axis.leftTrigger, 0);
+				pg3b.apply();
+				writer.flush(2000);
+			} catch (IOException ex) {
+				check(false, "failure was reported again: " + ex.getMessage());
+			}
+			check(controller.get(Button.b), "button changed after the failure was not written");
+			trigger = controller.get(Axis.leftTrigger);
+			check(Math.abs(trigger) < 0.02f, "trigger is " + trigger + ", expected 0");
+		} finally {
+			pg3b.close();
+		}
+		finish();
+	}
+
+	/**
+	 * Fails one write, after blocking it until released.
+	 */
+	static class FailingOutputStream extends FilterOutputStream {
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		private volatile boolean fail;
+
+		public FailingOutputStream (OutputStream output) {
+			super(output);
+		}
+
+		public void failNextWrite () {
+			fail = true;
+		}
+
+		public void write (int b) throws IOException {
+			checkFail();
+			out.write(b);
+		}
+
+		public void write (byte[] bytes, int offset, int length) throws IOException {
+			checkFail();
+			out.write(bytes, offset, length);
+		}
+
+		private void checkFail () throws IOException {
+			if (!fail) return;
+			fail = false;
+			blocked.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException ignored) {
+			}
+			throw new IOException("Injected failure.");
+		}
+	}
+}
@@ -0,0 +1,80 @@
+
+package com.esotericsoftware.controller.misc;
+
+import static com.esotericsoftware.controller.misc.Checks.*;
+
+import com.esotericsoftware.controller.device.Axis;
+import com.esotericsoftware.controller.device.Button;
+import com.esotericsoftware.controller.pg3b.PG3B;
+import com.esotericsoftware.controller.pg3b.PG3BEmulator;
+import com.esotericsoftware.minlog.Log;
+
+/**
+ * Checks that sending commands to a {@link PG3BEmulator} in steady state allocates no memory on the thread applying changes, in
+ * sync and pipelined modes. The emulator runs on the calling thread, so it is checked too. Uses the per-thread allocation counter
+ * of the HotSpot VM. Exits with a non-zero status on failure.
+ */
+public class PG3BAllocationCheck {
+	static final int WARMUP = 50000;
+	static final int TICKS = 20000;
+
+	public static void main (String[] args) throws Exception {
+		Log.set(Log.LEVEL_WARN);
+		if (getAllocatedBytes() == -1) {
+			System.out.println("Per-thread allocated bytes are not supported by this VM.");
+			System.exit(1);
+		}
+		for (int i = 0; i < 2; i++) {
+			boolean binary = i == 1;
+			for (int ii = 0; ii < 2; ii++) {
+				boolean state = ii == 1;
+				for (int iii = 0; iii < 2; iii++) {
+					boolean pipelined = iii == 1;
+					String name = (binary ? "binary" : "ascii") + (state ? ", state" : ", actions") + (pipelined ? ", pipelined" : "");
+					checkAllocation(name, binary, state, pipelined);
+				}
+			}
+		}
+		finish();
+	}
+
+	static void checkAllocation (String name, boolean binary, boolean state, boolean pipelined) throws Exception {
+		PG3BEmulator emulator = new PG3BEmulator();
+		emulator.setBinarySupported(binary);
+		emulator.setStateSupported(state);
+		PG3B pg3b = new PG3B("Emulator", emulator.getInputStream(), emulator.getOutputStream(), 300);
+		try {
+			pg3b.setPipelined(pipelined);
+			float[] values = new float[256];
+			for (int i = 0; i < values.length; i++)
+				values[i] = i / 127.5f - 1;
+			for (int i = 0; i < WARMUP; i++)
+				tick(pg3b, values, i);
+			pg3b.awaitPending();
+
+			long start = getAllocatedBytes();
+			for (int i = 0; i < TICKS; i++)
+				tick(pg3b, values, i);
+			pg3b.awaitPending();
+			long allocated = getAllocatedBytes() - start;
+
+			check(allocated == 0, name + " allocated " + allocated + " bytes");
+			System.out.println(String.format("%-32s %d bytes allocated", name, allocated));
+		} finally {
+			pg3b.close();
+		}
+	}
+
+	/**
+	 * Moves both sticks and toggles a button, so every tick sends commands.
+	 */
+	static void tick (PG3B pg3b, float[] values, int i) throws Exception {
+		int n = values.length;
+		pg3b.set(Axis.leftStickX, values[i % n]);
+		pg3b.set(Axis.leftStickY, values[(i + 64) % n]);
+		pg3b.set(Axis.rightStickX, values[(i + 128) % n]);
+		pg3b.set(Axis.rightStickY, values[(i + 192) % n]);
+		pg3b.set(Button.a, (i & 1) != 0);
+		pg3b.apply();
+	}
+}
@@ -0,0 +1,111 @@
+
+package com.esotericsoftware.controller.misc;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.esotericsoftware.controller.device.Axis;
+import com.esotericsoftware.controller.input.XboxController;
+import com.esotericsoftware.controller.pg3b.PG3B;
+import com.esotericsoftware.controller.pg3b.PG3BEmulator;
+import com.esotericsoftware.minlog.Log;
+
+/**
+ * Measures the throughput and latency of the PG3B host stack using a {@link PG3BEmulator}.
+ */
+public class PG3BBenchmark {
+	static final int WARMUP = 5000;
+	static final int TICKS = 20000;
+
+	public static void main (String[] args) throws Exception {
+		Log.set(Log.LEVEL_WARN);
+		long responseDelay = args.length > 0 ? Long.parseLong(args[0]) * 1000 : 0;
+		System.out.println("Response delay: " + responseDelay / 1000 + "us");
+		System.out.println(String.format("%-32s %10s %8s %8s %8s %8s", "", "ticks/s", "cmds", "p50 us", "p99 us", "max us"));
+		for (int i = 0; i < 2; i++) {
+			boolean binary = i == 1;
+			for (int ii = 0; ii < 2; ii++) {
+				boolean state = ii == 1;
+				for (int iii = 0; iii < 2; iii++) {
+					boolean pipelined = iii == 1;
+					String name = (binary ? "binary" : "ascii") + (state ? ", state" : ", actions") + (pipelined ? ", pipelined" : "");
+					applyBenchmark(name, binary, state, pipelined, responseDelay);
+				}
+			}
+		}
+		roundTripBenchmark(responseDelay);
+	}
+
+	/**
+	 * Moves both sticks every tick and measures how long {@link PG3B#apply()} takes.
+	 */
+	static void applyBenchmark (String name, boolean binary, boolean state, boolean pipelined, long responseDelay)
+		throws Exception {
+		PG3BEmulator emulator = new PG3BEmulator();
+		emulator.setBinarySupported(binary);
+		emulator.setStateSupported(state);
+		emulator.setResponseDelay(responseDelay);
+		PG3B pg3b = new PG3B("Emulator", emulator.getInputStream(), emulator.getOutputStream(), 300);
+		try {
+			pg3b.setPipelined(pipelined);
+			Random random = new Random(0);
+			long[] times = new long[TICKS];
+			for (int i = 0; i < WARMUP; i++)
+				tick(pg3b, random);
+			pg3b.awaitPending();
+
+			int startCommands = emulator.getCommandCount();
+			long startTime = System.nanoTime();
+			for (int i = 0; i < TICKS; i++) {
+				long tickTime = System.nanoTime();
+				tick(pg3b, random);
+				times[i] = System.nanoTime() - tickTime;
+			}
+			pg3b.awaitPending();
+			long totalTime = System.nanoTime() - startTime;
+			int commands = emulator.getCommandCount() - startCommands;
+
+			Arrays.sort(times);
+			System.out.println(String.format("%-32s %10d %8d %8.1f %8.1f %8.1f", name, TICKS * 1000000000L / totalTime, commands,
+				times[TICKS / 2] / 1000f, times[TICKS * 99 / 100] / 1000f, times[TICKS - 1] / 1000f));
+		} finally {
+			pg3b.close();
+		}
+	}
+
+	static void tick (PG3B pg3b, Random random) throws Exception {
+		pg3b.set(Axis.leftStickX, random.nextFloat() * 2 - 1);
+		pg3b.set(Axis.leftStickY, random.nextFloat() * 2 - 1);
+		pg3b.set(Axis.rightStickX, random.nextFloat() * 2 - 1);
+		pg3b.set(Axis.rightStickY, random.nextFloat() * 2 - 1);
+		pg3b.apply();
+	}
+
+	/**
+	 * Measures the time from applying an axis change until the controller reports it.
+	 */
+	static void roundTripBenchmark (long responseDelay) throws Exception {
+		PG3BEmulator emulator = new PG3BEmulator();
+		emulator.setResponseDelay(responseDelay);
+		emulator.setControllerDelay(2000000);
+		XboxController controller = emulator.getController();
+		PG3B pg3b = new PG3B("Emulator", emulator.getInputStream(), emulator.getOutputStream(), 300);
+		try {
+			int count = 200;
+			long[] times = new long[count];
+			for (int i = 0; i < count; i++) {
+				float value = i % 2 == 0 ? 1 : -1;
+				long startTime = System.nanoTime();
+				pg3b.apply(Axis.leftStickX, value);
+				while (Math.abs(controller.get(Axis.leftStickX) - value) > 0.05f)
+					Thread.yield();
+				times[i] = System.nanoTime() - startTime;
+			}
+			Arrays.sort(times);
+			System.out.println(String.format("Round trip with 2ms controller delay: p50 %.1fus, p99 %.1fus", times[count / 2] / 1000f,
+				times[count * 99 / 100] / 1000f));
+		} finally {
+			pg3b.close();
+		}
+	}
+}
@@ -0,0 +1,140 @@
+
+package com.esotericsoftware.controller.misc;
+
+import static com.esotericsoftware.controller.misc.Checks.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import com.esotericsoftware.controller.device.Axis;
+import com.esotericsoftware.controller.device.ResponseCurve;
+import com.esotericsoftware.controller.misc.OutputRecorderCheck.NullDevice;
+import com.esotericsoftware.controller.ui.Config;
+import com.esotericsoftware.controller.ui.Editable;
+import com.esotericsoftware.yamlbeans.YamlReader;
+import com.esotericsoftware.yamlbeans.YamlWriter;
+
+/**
+ * Checks the values that {@link ResponseCurve} looks up in its table against the computed values, that curves are mirrored for
+ * negative values, that looking up values does not allocate, that a device applies the curves, and that curves in a config
+ * survive a YAML round trip. Exits with a non-zero status on failure.
+ */
+public class ResponseCurveCheck {
+	static final int SAMPLES = 1000000;
+	static final float TOLERANCE = 0.005f;
+
+	// Keeps the lookups from being optimized away.
+	static float sink;
+
+	public static void main (String[] args) throws Exception {
+		ResponseCurve.PiecewiseLinear linear = new ResponseCurve.PiecewiseLinear();
+		linear.setPoints(new float[] {0.25f, 0.1f, 0.75f, 0.9f});
+		ResponseCurve.Exponential squared = new ResponseCurve.Exponential();
+		squared.setExponent(2);
+		ResponseCurve.Exponential root = new ResponseCurve.Exponential();
+		root.setExponent(0.5f);
+		ResponseCurve.SCurve sCurve = new ResponseCurve.SCurve();
+		sCurve.setStrength(0.5f);
+		ResponseCurve.AntiDeadzone antiDeadzone = new ResponseCurve.AntiDeadzone();
+		antiDeadzone.setSize(0.2f);
+		ResponseCurve[] curves = {linear, squared, root, sCurve, antiDeadzone};
+		String[] names = {"piecewise-linear", "exponential 2", "exponential 0.5", "s-curve 0.5", "anti-deadzone 0.2"};
+
+		for (int i = 0; i < curves.length; i++)
+			checkAccuracy(names[i], curves[i]);
+		checkAllocation(squared);
+		checkDevice(squared);
+		checkYaml(linear, squared, sCurve, antiDeadzone);
+		finish();
+	}
+
+	static void checkAccuracy (String name, ResponseCurve curve) {
+		curve.compile();
+		Random random = new Random(0);
+		float maxError = 0, maxValue = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			float value = random.nextFloat() * 2 - 1;
+			// Also check values near zero, where curves such as the anti-deadzone jump.
+			if (i % 10 == 0) value /= 256;
+			float lookedUp = curve.get(value);
+			float computed = curve.compute(Math.abs(value));
+			if (value < 0) computed = -computed;
+			float error = Math.abs(lookedUp - computed);
+			if (error > maxError) {
+				maxError = error;
+				maxValue = value;
+			}
+			check(curve.get(-value) == -lookedUp, name + " is not mirrored at " + value);
+		}
+		check(curve.get(0) == 0, name + " is not zero at zero: " + curve.get(0));
+		check(curve.get(2) == curve.get(1) && curve.get(-2) == curve.get(-1), name + " is not clamped");
+		boolean passed = maxError <= TOLERANCE;
+		check(passed, name + " max error " + maxError + " at " + maxValue);
+		System.out.println(String.format("%-18s max error %.6f at %.4f", name, maxError, maxValue));
+	}
+
+	static void checkAllocation (ResponseCurve curve) {
+		if (getAllocatedBytes() == -1) {
+			System.out.println("Per-thread allocated bytes are not supported by this VM, allocation not checked.");
+			return;
+		}
+		float total = 0;
+		for (int i = 0; i < SAMPLES; i++)
+			total += curve.get((i & 1023) / 511.5f - 1);
+		long start = getAllocatedBytes();
+		for (int i = 0; i < SAMPLES; i++)
+			total += curve.get((i & 1023) / 511.5f - 1);
+		long allocated = getAllocatedBytes() - start;
+		sink = total;
+		check(allocated == 0, "lookups allocated " + allocated + " bytes");
+		System.out.println("Lookups allocated " + allocated + " bytes.");
+	}
+
+	static void checkDevice (ResponseCurve curve) throws Exception {
+		NullDevice device = new NullDevice();
+		device.setResponseCurve(Axis.leftTrigger, curve);
+		device.setResponseCurve(Axis.leftStickX, curve);
+		device.set(Axis.leftTrigger, 0.5f);
+		device.set(Axis.leftStickX, -0.5f);
+		device.apply();
+		float trigger = device.getState().getDeflection(Axis.leftTrigger);
+		float stick = device.getState().getDeflection(Axis.leftStickX);
+		check(Math.abs(trigger - curve.compute(0.5f)) <= TOLERANCE, "trigger deflection with curve: " + trigger);
+		check(Math.abs(stick + curve.compute(0.5f)) <= TOLERANCE, "stick deflection with curve: " + stick);
+		check(device.get(Axis.leftTrigger) == 0.5f, "trigger state was changed by the curve: " + device.get(Axis.leftTrigger));
+		System.out.println("Device deflections with curve: trigger " + trigger + ", stick " + stick);
+	}
+
+	static void checkYaml (ResponseCurve.PiecewiseLinear linear, ResponseCurve.Exponential exponential,
+		ResponseCurve.SCurve sCurve, ResponseCurve.AntiDeadzone antiDeadzone) throws Exception {
+		Config config = new Config();
+		config.getResponseCurves().put(Axis.leftStickX.name(), linear);
+		config.getResponseCurves().put(Axis.leftStickY.name(), exponential);
+		config.getResponseCurves().put(Axis.rightStickX.name(), sCurve);
+		config.getResponseCurves().put(Axis.rightTrigger.name(), antiDeadzone);
+		StringWriter writer = new StringWriter();
+		YamlWriter yamlWriter = new YamlWriter(writer, Editable.yamlConfig);
+		yamlWriter.write(config);
+		yamlWriter.close();
+		String yaml = writer.toString();
+		check(yaml.contains("!piecewise-linear") && yaml.contains("!exponential") && yaml.contains("!s-curve")
+			&& yaml.contains("!anti-deadzone"), "YAML is missing curve tags:\n" + yaml);
+
+		Config read = new YamlReader(new StringReader(yaml), Editable.yamlConfig).read(Config.class);
+		ResponseCurve.PiecewiseLinear readLinear = (ResponseCurve.PiecewiseLinear)read.getResponseCurves().get(
+			Axis.leftStickX.name());
+		ResponseCurve.Exponential readExponential = (ResponseCurve.Exponential)read.getResponseCurves().get(
+			Axis.leftStickY.name());
+		ResponseCurve.SCurve readSCurve = (ResponseCurve.SCurve)read.getResponseCurves().get(Axis.rightStickX.name());
+		ResponseCurve.AntiDeadzone readAntiDeadzone = (ResponseCurve.AntiDeadzone)read.getResponseCurves().get(
+			Axis.rightTrigger.name());
+		check(java.util.Arrays.equals(readLinear.getPoints(), linear.getPoints()), "piecewise-linear points were not read");
+		check(readExponential.getExponent() == exponential.getExponent(), "exponent was not read");
+		check(readSCurve.getStrength() == sCurve.getStrength(), "strength was not read");
+		check(readAntiDeadzone.getSize() == antiDeadzone.getSize(), "anti-deadzone size was not read");
+		for (float value = -1; value <= 1; value += 0.01f)
+			check(readExponential.get(value) == exponential.get(value), "read exponential differs at " + value);
+		System.out.println("Checked YAML round trip.");
+	}
+}
@@ -0,0 +1,124 @@
+
+package com.esotericsoftware.controller.misc;
+
+import static com.esotericsoftware.controller.misc.Checks.*;
+
+import com.esotericsoftware.controller.device.Axis;
+import com.esotericsoftware.controller.device.Button;
+import com.esotericsoftware.controller.device.Device;
+import com.esotericsoftware.controller.device.Target;
+import com.esotericsoftware.controller.pg3b.PG3B;
+import com.esotericsoftware.controller.pg3b.PG3BEmulator;
+import com.esotericsoftware.minlog.Log;
+
+/**
+ * Checks that target handles map to the same targets as names, that the handle overloads set, apply and get the same states as
+ * the target overloads, and that setting by handle does not allocate. Exits with a non-zero status on failure.
+ */
+public class TargetHandleCheck {
+	static final int WARMUP = 50000;
+	static final int SETS = 100000;
+
+	public static void main (String[] args) throws Exception {
+		Log.set(Log.LEVEL_WARN);
+		checkMapping();
+		PG3BEmulator emulator = new PG3BEmulator();
+		PG3B pg3b = new PG3B("Emulator", emulator.getInputStream(), emulator.getOutputStream(), 300);
+		try {
+			checkStates(pg3b, emulator);
+			checkInvalid(pg3b);
+			checkAllocation(pg3b);
+		} finally {
+			pg3b.close();
+		}
+		finish();
+	}
+
+	static void checkMapping () {
+		int count = 0;
+		for (Button button : Button.values()) {
+			checkMapping(button, button.name(), button.getAlias());
+			count++;
+		}
+		for (Axis axis : Axis.values()) {
+			checkMapping(axis, axis.name(), axis.getAlias());
+			count++;
+		}
+		check(count == Device.HANDLE_COUNT, "HANDLE_COUNT is " + Device.HANDLE_COUNT + " for " + count + " targets");
+		System.out.println("Checked " + count + " target handles.");
+	}
+
+	static void checkMapping (Target target, String name, String alias) {
+		int handle = Device.getHandle(target);
+		check(handle >= 0 && handle < Device.HANDLE_COUNT, target + " handle out of range: " + handle);
+		check(Device.getTarget(handle) == target, target + " handle maps to " + Device.getTarget(handle));
+		check(Device.getTarget(name) == target, target + " name maps to " + Device.getTarget(name));
+		if (alias != null) check(Device.getTarget(alias) == target, target + " alias maps to " + Device.getTarget(alias));
+	}
+
+	static void checkStates (PG3B pg3b, PG3BEmulator emulator) throws Exception {
+		for (int handle = 0; handle < Device.HANDLE_COUNT; handle++) {
+			Target target = Device.getTarget(handle);
+			float state = target instanceof Button ? 1 : 0.5f;
+			check(pg3b.getHandle(target.toString()) == handle, target + " handle by name: " + pg3b.getHandle(target.toString()));
+
+			pg3b.set(handle, state);
+			pg3b.apply();
+			check(pg3b.get(handle) == state, target + " set by handle, got: " + pg3b.get(handle));
+			check(pg3b.get(target) == state, target + " set by handle, got by target: " + pg3b.get(target));
+			if (target instanceof Button)
+				check(emulator.getController().get((Button)target), target + " set by handle was not sent to the controller");
+
+			pg3b.apply(handle, 0);
+			check(pg3b.get(handle) == 0, target + " applied by handle, got: " + pg3b.get(handle));
+			check(pg3b.get(target) == 0, target + " applied by handle, got by target: " + pg3b.get(target));
+			if (target instanceof Button)
+				check(!emulator.getController().get((Button)target), target + " applied by handle was not sent to the controller");
+		}
+		System.out.println("Checked set, apply and get by handle.");
+	}
+
+	static void checkInvalid (PG3B pg3b) throws Exception {
+		int[] invalid = {-1, Device.HANDLE_COUNT, Integer.MAX_VALUE};
+		for (int handle : invalid) {
+			try {
+				pg3b.set(handle, 1f);
+				check(false, "set with invalid handle did not throw: " + handle);
+			} catch (IllegalArgumentException expected) {
+			}
+			try {
+				pg3b.apply(handle, 1f);
+				check(false, "apply with invalid handle did not throw: " + handle);
+			} catch (IllegalArgumentException expected) {
+			}
+			try {
+				pg3b.get(handle);
+				check(false, "get with invalid handle did not throw: " + handle);
+			} catch (IllegalArgumentException expected) {
+			}
+		}
+		System.out.println("Checked invalid handles.");
+	}
+
+	static void checkAllocation (PG3B pg3b) {
+		if (getAllocatedBytes() == -1) {
+			System.out.println("Per-thread allocated bytes are not supported by this VM, allocation not checked.");
+			return;
+		}
+		int a = pg3b.getHandle("a"), leftStickX = pg3b.getHandle("leftStickX");
+		for (int i = 0; i < WARMUP; i++)
+			set(pg3b, a, leftStickX, i);
+		long start = getAllocatedBytes();
+		for (int i = 0; i < SETS; i++)
+			set(pg3b, a, leftStickX, i);
+		long allocated = getAllocatedBytes() - start;
+		check(allocated == 0, "set by handle allocated " + allocated + " bytes");
+		System.out.println("Set by handle allocated " + allocated + " bytes.");
+	}
+
+	static void set (Device device, int button, int axis, int i) {
+		device.set(button, i & 1);
+		device.set(axis, (i & 255) / 255f);
+		device.get(button);
+	}
+}
@@ -0,0 +1,159 @@
+package com.esotericsoftware.controller.misc;
+
+import static com.esotericsoftware.controller.misc.Checks.*;
+
+import com.esotericsoftware.controller.util.TickScheduler;
+
+/**
+ * Checks that a {@link TickScheduler} counts each tick or overrun, never ticks early, does not run missed ticks after an overrun,
+ * stops waiting when interrupted, slows to the idle rate without activity, and returns to the full rate on activity. The
+ * lateness, jitter and wake latency depend on the machine, so they are printed but not checked. Exits with a non-zero status on
+ * failure.
+ */
+public class TickSchedulerCheck {
+	static final long CHECK_NANOS = 500000000;
+	static final int WAKES = 20;
+
+	public static void main (String[] args) throws Exception {
+		int[] rates = {125, 250, 500, 1000};
+		for (int rate : rates)
+			checkRate(rate);
+		checkOverrun();
+		checkInterrupt();
+		checkIdle();
+		finish();
+	}
+
+	static void checkRate (int ticksPerSecond) throws Exception {
+		TickScheduler scheduler = new TickScheduler(ticksPerSecond);
+		int ticks = (int)(CHECK_NANOS / scheduler.getPeriod());
+		scheduler.waitForTick();
+		long start = System.nanoTime();
+		for (int i = 0; i < ticks; i++)
+			scheduler.waitForTick();
+		long elapsed = System.nanoTime() - start;
+		long expected = ticks * scheduler.getPeriod();
+		// Ticks are never early and overruns restart the schedule from the late tick, so they can only make it take longer.
+		check(elapsed >= expected - scheduler.getPeriod(), ticksPerSecond + " Hz took " + elapsed / 1000 + "us, expected at least "
+			+ expected / 1000 + "us");
+		check(scheduler.getTickCount() + scheduler.getOverruns() == ticks, ticksPerSecond + " Hz counted "
+			+ scheduler.getTickCount() + " ticks and " + scheduler.getOverruns() + " overruns for " + ticks);
+		System.out.println(String.format("%4d Hz: %d ticks in %dus (%.1f Hz), %s", ticksPerSecond, ticks, elapsed / 1000, ticks
+			* 1000000000f / elapsed, scheduler));
+	}
+
+	static void checkOverrun () throws Exception {
+		TickScheduler scheduler = new TickScheduler(1000);
+		scheduler.waitForTick();
+		for (int i = 0; i < 10; i++)
+			scheduler.waitForTick();
+		scheduler.resetStats();
+		Thread.sleep(5);
+		long start = System.nanoTime();
+		scheduler.waitForTick();
+		long overrunWait = System.nanoTime() - start;
+		check(scheduler.getOverruns() == 1, "counted " + scheduler.getOverruns() + " overruns");
+		check(scheduler.getTickCount() == 0, "counted " + scheduler.getTickCount() + " ticks for an overrun");
+		// The missed ticks are not run, so the following ticks are a period apart.
+		start = System.nanoTime();
+		for (int i = 0; i < 10; i++)
+			scheduler.waitForTick();
+		long elapsed = System.nanoTime() - start;
+		check(elapsed >= 9 * scheduler.getPeriod(), "10 ticks after an overrun took " + elapsed / 1000 + "us");
+		check(scheduler.getTickCount() + scheduler.getOverruns() == 11, "counted " + scheduler.getTickCount() + " ticks and "
+			+ scheduler.getOverruns() + " overruns for 11");
+		System.out.println("Checked overruns, waited " + overrunWait / 1000 + "us after an overrun: " + scheduler);
+	}
+
+	static void checkInterrupt () throws Exception {
+		TickScheduler scheduler = new TickScheduler(1);
+		scheduler.waitForTick();
+		final Thread thread = Thread.currentThread();
+		new Thread() {
+			public void run () {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException ignored) {
+				}
+				thread.interrupt();
+			}
+		}.start();
+		long start = System.nanoTime();
+		try {
+			scheduler.waitForTick();
+			check(false, "waiting was not interrupted");
+		} catch (InterruptedException expected) {
+		}
+		long elapsed = (System.nanoTime() - start) / 1000000;
+		System.out.println("Checked interrupt after " + elapsed + "ms.");
+	}
+
+	static void checkIdle () throws Exception {
+		final TickScheduler scheduler = new TickScheduler(1000);
+		scheduler.setIdleRate(10, 50);
+		scheduler.waitForTick();
+		scheduler.activity();
+		long start = System.nanoTime();
+		while (!scheduler.isIdle())
+			scheduler.waitForTick();
+		// Idle only after the delay without activity.
+		long idleAfter = (System.nanoTime() - start) / 1000000;
+		check(idleAfter >= 50, "idle after " + idleAfter + "ms, expected at least 50ms");
+
+		// Idle ticks are an idle period apart. If the tick before was late, the first one may come sooner.
+		start = System.nanoTime();
+		for (int i = 0; i < 3; i++)
+			scheduler.waitForTick();
+		long elapsed = (System.nanoTime() - start) / 1000000;
+		check(elapsed >= 200, "3 idle ticks took " + elapsed + "ms, expected about 300ms");
+		check(scheduler.isIdle(), "not idle without activity");
+
+		// Activity from another thread returns to the full rate, each time after the scheduler is idle again.
+		scheduler.resetStats();
+		final int[] returned = new int[1];
+		Thread thread = new Thread("Activity") {
+			public void run () {
+				for (int i = 0; i < WAKES; i++) {
+					if (!waitForIdle(scheduler, true)) return;
+					scheduler.activity();
+					if (!waitForIdle(scheduler, false)) return;
+					returned[0]++;
+				}
+			}
+		};
+		thread.start();
+		while (thread.isAlive())
+			scheduler.waitForTick();
+		check(returned[0] == WAKES, "returned to the full rate " + returned[0] + " times for " + WAKES + " activities");
+		// Activity at the end of an idle tick is noticed by the next tick instead of waking it.
+		check(scheduler.getWakeCount() <= WAKES, "woke " + scheduler.getWakeCount() + " times for " + WAKES + " activities");
+		System.out.println("Checked idle: " + scheduler);
+
+		// Activity returns to the full rate.
+		scheduler.activity();
+		scheduler.waitForTick();
+		check(!scheduler.isIdle(), "idle after activity");
+		start = System.nanoTime();
+		for (int i = 0; i < 10; i++)
+			scheduler.waitForTick();
+		elapsed = System.nanoTime() - start;
+		System.out.println("10 ticks after activity took " + elapsed / 1000 + "us.");
+	}
+
+	/**
+	 * Waits for the scheduler to become idle or not idle.
+	 * @return false if it did not within 5 seconds.
+	 */
+	static boolean waitForIdle (TickScheduler scheduler, boolean idle) {
+		long end = System.currentTimeMillis() + 5000;
+		while (scheduler.isIdle() != idle) {
+			if (System.currentTimeMillis() > end) return false;
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException ex) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
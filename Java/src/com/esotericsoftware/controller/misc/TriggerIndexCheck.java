@@ -0,0 +1,215 @@
+
+package com.esotericsoftware.controller.misc;
+
+import static com.esotericsoftware.controller.misc.Checks.*;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import com.esotericsoftware.controller.input.Input;
+import com.esotericsoftware.controller.input.InputDevice;
+import com.esotericsoftware.controller.ui.Config;
+import com.esotericsoftware.controller.ui.InputTrigger;
+import com.esotericsoftware.controller.ui.Poller;
+import com.esotericsoftware.controller.ui.Trigger;
+import com.esotericsoftware.controller.ui.TriggerIndex;
+import com.esotericsoftware.minlog.Log;
+
+/**
+ * Checks that a {@link TriggerIndex} returns only the triggers whose input changed, reads each input once per check, and is
+ * rebuilt when the config's triggers are edited. Also checks that a check does not allocate and prints its cost for small and
+ * large configs. Exits with a non-zero status on failure.
+ */
+public class TriggerIndexCheck {
+	static final int TICKS = 200000;
+
+	public static void main (String[] args) throws Exception {
+		Log.set(Log.LEVEL_WARN);
+		checkChanges();
+		checkEdits();
+		checkCost(10);
+		checkCost(500);
+		finish();
+	}
+
+	static void checkChanges () {
+		TestInput a = new TestInput(), b = new TestInput(), c = new TestInput();
+		Config config = new Config();
+		List<Trigger> triggers = config.getTriggers();
+		triggers.add(new InputTrigger(a, null));
+		triggers.add(new TestTrigger());
+		triggers.add(new InputTrigger(b, null));
+		triggers.add(new InputTrigger(a, null));
+		triggers.add(new InputTrigger(null, null));
+		triggers.add(new InputTrigger(c, null));
+		TriggerIndex index = config.newTriggerIndex();
+
+		checkChanged(changed(index), new int[] {0, 1, 2, 3, 4, 5}, "first check");
+		checkChanged(changed(index), new int[] {1}, "no change");
+		check(!index.inputsChanged(), "inputs changed without a change");
+
+		a.state = 1;
+		int reads = a.reads;
+		checkChanged(changed(index), new int[] {0, 1, 3}, "input shared by two triggers changed");
+		check(index.inputsChanged(), "inputs did not change");
+		check(a.reads - reads == 1, "shared input was read " + (a.reads - reads) + " times");
+
+		b.state = 0.5f;
+		c.state = 0.5f;
+		checkChanged(changed(index), new int[] {1, 2, 5}, "two inputs changed");
+
+		// The other state is used by deadzones, so a change to it is a change.
+		c.axis = true;
+		c.otherState = 0.25f;
+		checkChanged(changed(index), new int[] {1, 5}, "other state changed");
+		System.out.println("Checked changed triggers.");
+	}
+
+	static void checkEdits () throws Exception {
+		TestInput a = new TestInput(), b = new TestInput();
+		Config config = new Config();
+		List<Trigger> triggers = config.getTriggers();
+		InputTrigger first = new InputTrigger(a, null);
+		triggers.add(first);
+		triggers.add(new InputTrigger(b, null));
+		TriggerIndex index = config.newTriggerIndex();
+		changed(index);
+
+		// Removed without saving the config, as an editor does before it saves.
+		triggers.remove(1);
+		b.state = 1;
+		checkChanged(changed(index), new int[] {0}, "trigger removed");
+		changed(index);
+
+		first.setInput(b);
+		config.save(new StringWriter());
+		changed(index);
+		b.state = 0;
+		checkChanged(changed(index), new int[] {0}, "input changed and config saved");
+		a.state = 0.5f;
+		checkChanged(changed(index), new int[0], "old input changed");
+
+		triggers.add(new InputTrigger(a, null));
+		config.save(new StringWriter());
+		changed(index);
+		a.state = 1;
+		checkChanged(changed(index), new int[] {1}, "trigger added and config saved");
+
+		// Added without saving, so the index grows when it sees the size change.
+		int count = triggers.size();
+		for (int i = 0; i < 32; i++)
+			triggers.add(new InputTrigger(b, null));
+		int[] changed = changed(index);
+		check(changed.length == triggers.size(), "checked " + changed.length + " triggers after adding without saving, expected "
+			+ triggers.size());
+		check(index.getTrigger(count + 31) == triggers.get(count + 31), "added trigger has the wrong index");
+		System.out.println("Checked edits.");
+	}
+
+	static void checkCost (int triggerCount) {
+		Config config = new Config();
+		List<Trigger> triggers = config.getTriggers();
+		TestInput[] inputs = new TestInput[triggerCount / 2];
+		for (int i = 0; i < inputs.length; i++)
+			inputs[i] = new TestInput();
+		for (int i = 0; i < triggerCount; i++)
+			triggers.add(new InputTrigger(inputs[i % inputs.length], null));
+		TriggerIndex index = config.newTriggerIndex();
+		for (int i = 0; i < TICKS; i++)
+			tick(index, inputs[0], i);
+
+		long allocated = getAllocatedBytes();
+		boolean allocationCounted = allocated != -1;
+		long start = System.nanoTime();
+		int checked = 0;
+		for (int i = 0; i < TICKS; i++)
+			checked += tick(index, inputs[0], i);
+		long time = System.nanoTime() - start;
+		if (allocationCounted) {
+			allocated = getAllocatedBytes() - allocated;
+			check(allocated == 0, triggerCount + " triggers allocated " + allocated + " bytes");
+		}
+		// One input changes every other tick, and two triggers use it.
+		check(checked == TICKS, triggerCount + " triggers checked " + checked + " times");
+		System.out.println(String.format("%d triggers on %d inputs: %.1fns per check, %d triggers checked, %d bytes allocated",
+			triggerCount, inputs.length, time / (float)TICKS, checked, allocated));
+	}
+
+	static int tick (TriggerIndex index, TestInput input, int i) {
+		if ((i & 1) == 0) input.state = (i & 2) == 0 ? 1 : 0;
+		return index.update();
+	}
+
+	static int[] changed (TriggerIndex index) {
+		int count = index.update();
+		return Arrays.copyOf(index.getChanged(), count);
+	}
+
+	static void checkChanged (int[] actual, int[] expected, String message) {
+		check(Arrays.equals(actual, expected), message + ": expected " + Arrays.toString(expected) + ", got "
+			+ Arrays.toString(actual));
+	}
+
+	/**
+	 * Public so the config can be saved with it.
+	 */
+	static public class TestInput implements Input {
+		float state, otherState;
+		boolean axis;
+		int reads;
+
+		public TestInput () {
+		}
+
+		public boolean isValid () {
+			return true;
+		}
+
+		public boolean isAxis () {
+			return axis;
+		}
+
+		public boolean isAxisX () {
+			return true;
+		}
+
+		public InputDevice getInputDevice () {
+			return null;
+		}
+
+		public float getState () {
+			reads++;
+			return state;
+		}
+
+		public float getOtherState () {
+			return otherState;
+		}
+	}
+
+	/**
+	 * A trigger that is not an input trigger, so it is always checked.
+	 */
+	static class TestTrigger extends Trigger {
+		public String getSourceName () {
+			return "";
+		}
+
+		public Poller getPoller () {
+			return null;
+		}
+
+		public boolean isActive () {
+			return false;
+		}
+
+		public Object getPayload () {
+			return null;
+		}
+
+		public boolean isValid () {
+			return true;
+		}
+	}
+}
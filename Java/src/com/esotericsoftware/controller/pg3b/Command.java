@@ -4,7 +4,7 @@ package com.esotericsoftware.controller.pg3b;
 /**
  * The low level commands that can be sent to the PG3B.
  */
-enum Command {
+public enum Command {
 	action('A'), //
 	eventAction('E'), //
 	setCalibrationEnabled('C'), //
@@ -15,7 +15,12 @@ enum Command {
 	initializeProfile('P'), //
 	finalizeProfile('Q'), //
 	readPage('R'), //
-	writePage('W');
+	writePage('W'), //
+	setState('T'), //
+	getCapabilities('V'), //
+	setBinaryEnabled('M'), //
+	readPages('B'), //
+	writePages('U');
 
 	char code;
 
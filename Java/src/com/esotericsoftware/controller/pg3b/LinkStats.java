@@ -0,0 +1,221 @@
+
+package com.esotericsoftware.controller.pg3b;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.esotericsoftware.controller.util.LatencyHistogram;
+
+/**
+ * Statistics for the connection to a PG3B. Updating the statistics is cheap enough that they are always collected.
+ */
+public class LinkStats {
+	static private final Command[] commands = Command.values();
+
+	private final LatencyHistogram[] histograms = new LatencyHistogram[commands.length];
+	private final AtomicLong commandsSent = new AtomicLong(), bytesSent = new AtomicLong(), bytesReceived = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong(), ignored = new AtomicLong(), debugMessages = new AtomicLong();
+	private final AtomicLong crcErrors = new AtomicLong(), reconnects = new AtomicLong();
+	private final Rate commandRate = new Rate(), sendRate = new Rate(), receiveRate = new Rate();
+
+	public LinkStats () {
+		for (int i = 0; i < commands.length; i++)
+			histograms[i] = new LatencyHistogram();
+	}
+
+	/**
+	 * Called while holding the PG3B's communication lock.
+	 */
+	void commandSent (int bytes) {
+		commandsSent.incrementAndGet();
+		bytesSent.addAndGet(bytes);
+		long time = System.nanoTime();
+		commandRate.add(1, time);
+		sendRate.add(bytes, time);
+	}
+
+	/**
+	 * Called only by the thread reading responses.
+	 */
+	void bytesReceived (int bytes) {
+		bytesReceived.addAndGet(bytes);
+		receiveRate.add(bytes, System.nanoTime());
+	}
+
+	void commandCompleted (Command command, long nanos) {
+		histograms[command.ordinal()].add(nanos);
+	}
+
+	void timeout () {
+		timeouts.incrementAndGet();
+	}
+
+	void ignored () {
+		ignored.incrementAndGet();
+	}
+
+	void debugMessage () {
+		debugMessages.incrementAndGet();
+	}
+
+	void crcError () {
+		crcErrors.incrementAndGet();
+	}
+
+	void reconnected () {
+		reconnects.incrementAndGet();
+	}
+
+	/**
+	 * Returns the number of round trips in each bucket for the command.
+	 * @param command If null, the histograms for all commands are combined.
+	 * @see LatencyHistogram#BUCKET_COUNT
+	 */
+	public long[] getHistogram (Command command) {
+		if (command != null) return histograms[command.ordinal()].getCounts();
+		long[] histogram = new long[LatencyHistogram.BUCKET_COUNT];
+		for (int i = 0; i < commands.length; i++)
+			histograms[i].addCounts(histogram);
+		return histogram;
+	}
+
+	/**
+	 * Returns the number of round trips measured for the command.
+	 * @param command If null, all commands are counted.
+	 */
+	public long getCount (Command command) {
+		if (command != null) return histograms[command.ordinal()].getCount();
+		long count = 0;
+		for (int i = 0; i < commands.length; i++)
+			count += histograms[i].getCount();
+		return count;
+	}
+
+	/**
+	 * Returns the average round trip time in microseconds for the command, or 0 if none have been measured.
+	 * @param command If null, all commands are averaged.
+	 */
+	public float getAverage (Command command) {
+		long count = getCount(command);
+		if (count == 0) return 0;
+		long nanos = 0;
+		for (int i = 0; i < commands.length; i++)
+			if (command == null || command.ordinal() == i) nanos += histograms[i].getTotalNanos();
+		return nanos / 1000f / count;
+	}
+
+	/**
+	 * Returns the round trip time in microseconds that the percentage of round trips for the command completed within.
+	 * @param percentile Between 0 and 1.
+	 * @param command If null, all commands are used.
+	 * @see LatencyHistogram#getPercentile(long[], float)
+	 */
+	public long getPercentile (Command command, float percentile) {
+		return LatencyHistogram.getPercentile(getHistogram(command), percentile);
+	}
+
+	public long getCommandsSent () {
+		return commandsSent.get();
+	}
+
+	public long getBytesSent () {
+		return bytesSent.get();
+	}
+
+	public long getBytesReceived () {
+		return bytesReceived.get();
+	}
+
+	/**
+	 * Returns the number of times the PG3B did not respond in time.
+	 */
+	public long getTimeouts () {
+		return timeouts.get();
+	}
+
+	/**
+	 * Returns the number of lines or frames received that were not a response to a command or a debug message.
+	 */
+	public long getIgnored () {
+		return ignored.get();
+	}
+
+	/**
+	 * Returns the number of debug messages received from the PG3B.
+	 */
+	public long getDebugMessages () {
+		return debugMessages.get();
+	}
+
+	/**
+	 * Returns the number of binary frames discarded because of an invalid CRC.
+	 */
+	public long getCrcErrors () {
+		return crcErrors.get();
+	}
+
+	/**
+	 * Returns the number of times the connection was reopened after communication with the PG3B failed.
+	 */
+	public long getReconnects () {
+		return reconnects.get();
+	}
+
+	/**
+	 * Returns the number of commands sent during the last second.
+	 */
+	public float getCommandsPerSecond () {
+		return commandRate.get();
+	}
+
+	/**
+	 * Returns the number of bytes sent during the last second.
+	 */
+	public float getBytesSentPerSecond () {
+		return sendRate.get();
+	}
+
+	/**
+	 * Returns the number of bytes received during the last second.
+	 */
+	public float getBytesReceivedPerSecond () {
+		return receiveRate.get();
+	}
+
+	public void reset () {
+		for (int i = 0; i < commands.length; i++)
+			histograms[i].reset();
+		commandsSent.set(0);
+		bytesSent.set(0);
+		bytesReceived.set(0);
+		timeouts.set(0);
+		ignored.set(0);
+		debugMessages.set(0);
+		crcErrors.set(0);
+		reconnects.set(0);
+	}
+
+	/**
+	 * Counts events in one second windows. Only one thread may add to a rate.
+	 */
+	static private class Rate {
+		private volatile long windowStart = System.nanoTime();
+		private long windowCount;
+		private volatile float rate;
+
+		void add (long count, long time) {
+			long elapsed = time - windowStart;
+			if (elapsed >= 1000000000L) {
+				rate = windowCount * 1000000000f / elapsed;
+				windowStart = time;
+				windowCount = 0;
+			}
+			windowCount += count;
+		}
+
+		float get () {
+			// Nothing has been added for over a window, so the last rate is stale.
+			if (System.nanoTime() - windowStart > 2000000000L) return 0;
+			return rate;
+		}
+	}
+}
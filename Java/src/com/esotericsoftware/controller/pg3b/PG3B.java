@@ -6,11 +6,11 @@ import gnu.io.CommPort;
 import gnu.io.CommPortIdentifier;
 import gnu.io.SerialPort;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.nio.charset.Charset;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
 
 import com.esotericsoftware.controller.device.Axis;
 import com.esotericsoftware.controller.device.Button;
@@ -20,8 +20,8 @@ import com.esotericsoftware.controller.device.Device;
  * Controls the PG3B hardware.
  */
 public class PG3B extends Device {
-	static private final char[] hex = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
-	static private final int[] charToDigit = new int[103];
+	static private final byte[] hex = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+	static private final int[] charToDigit = new int[256];
 	static {
 		charToDigit['0'] = 0;
 		charToDigit['1'] = 1;
@@ -47,14 +47,61 @@ public class PG3B extends Device {
 		charToDigit['f'] = 15;
 	}
 
+	static private final int MAX_IN_FLIGHT = 32;
+	static private final int MAX_PAYLOAD = 512;
+	static private final int CAPABILITY_STATE = 0x01;
+	static private final int CAPABILITY_BINARY = 0x02;
+	static private final int CAPABILITY_BULK = 0x04;
+	static private final int FRAME_SYNC = 0xA5;
+	static private final int FRAME_HEADER_SIZE = 3;
+	static private final byte FRAME_REPLY = 'K';
+	static private final byte FRAME_DATA = 'D';
+	static private final short FRAME_LOG = (short)0xFFFF;
+	static private final int RECONNECT_DELAY_MIN = 100;
+	static private final int RECONNECT_DELAY_MAX = 5000;
+
 	private final String port;
-	final SerialPort serialPort;
+	private final int timeout;
+	// Held while communicating, separate from the device's monitor so an asynchronous writer doesn't block applying changes.
+	private final Object lock = new Object();
+	private final boolean serial;
+	private SerialPort serialPort;
 	private short sequenceNumber;
-	private BufferedReader input;
-	private OutputStreamWriter output;
+	private InputStream input;
+	private OutputStream output;
 	private final PG3BConfig config;
-	private final char[] buffer = new char[256];
-	private boolean debugEnabled, calibrationEnabled;
+	private final byte[] buffer = new byte[512];
+	private final byte[] wordArgument = new byte[2];
+	private boolean debugEnabled, calibrationEnabled = true;
+	private int capabilities;
+	private volatile boolean binary;
+
+	// Only used by the thread reading responses.
+	private final RingBuffer received = new RingBuffer(1024);
+	private short responseSequenceNumber;
+	private int payloadStart, payloadLength, responseLength;
+	// True when the receive timeout elapsed while reading the debug messages that follow an ASCII acknowledgement.
+	private boolean readingDebug;
+	// The payloads of data frames sent before a binary reply that is too large for a single frame.
+	private final byte[] data = new byte[MAX_PAYLOAD];
+	private short dataSequenceNumber;
+	private int dataLength;
+
+	// 0, 1: pressed button bitmask, 2+: wiper value for each axis
+	private final byte[] state = {0, 0, (byte)128, (byte)128, (byte)128, (byte)128, (byte)255, (byte)255};
+	private boolean collectingState, stateChanged;
+
+	private volatile boolean pipelined;
+	private Thread readerThread;
+	private final PendingCommand[] inFlight = new PendingCommand[MAX_IN_FLIGHT];
+	private final PendingCommand[] pendingPool = new PendingCommand[MAX_IN_FLIGHT];
+	private volatile IOException pipelineError;
+
+	private final LinkStats stats = new LinkStats();
+
+	private volatile boolean autoReconnect, reconnecting, closed;
+	private volatile Thread reconnectThread;
+	private final Object reconnectLock = new Object();
 
 	/**
 	 * Creates a new PG3B with a timeout of 300.
@@ -74,11 +121,57 @@ public class PG3B extends Device {
 		if (port == null) throw new IllegalArgumentException("portID cannot be null.");
 		if (port.length() == 0) throw new IllegalArgumentException("portID cannot be empty.");
 		this.port = port;
+		this.timeout = timeout;
+		serial = true;
+		for (int i = 0; i < MAX_IN_FLIGHT; i++)
+			pendingPool[i] = new PendingCommand();
 
+		try {
+			openSerialPort();
+			connect();
+			config = new PG3BConfig(this);
+		} catch (Exception ex) {
+			close();
+			throw new IOException("Error opening connection on port: " + port, ex);
+		}
+	}
+
+	/**
+	 * Creates a PG3B that communicates using the specified streams rather than a serial port, eg with a {@link PG3BEmulator}.
+	 * @param name Used in place of the port name.
+	 * @param input Reads must return no data, rather than block, after the timeout elapses.
+	 * @param timeout The number of millesconds to wait for the PG3B to respond to each command sent to it.
+	 * @throws IOException When the PG3B did not respond.
+	 */
+	public PG3B (String name, InputStream input, OutputStream output, int timeout) throws IOException {
+		if (name == null) throw new IllegalArgumentException("name cannot be null.");
+		if (input == null) throw new IllegalArgumentException("input cannot be null.");
+		if (output == null) throw new IllegalArgumentException("output cannot be null.");
+		this.port = name;
+		this.timeout = timeout;
+		for (int i = 0; i < MAX_IN_FLIGHT; i++)
+			pendingPool[i] = new PendingCommand();
+		serial = false;
+		this.input = input;
+		this.output = output;
+
+		try {
+			connect();
+			config = new PG3BConfig(this);
+		} catch (IOException ex) {
+			close();
+			throw new IOException("Error opening connection: " + name, ex);
+		}
+	}
+
+	private void openSerialPort () throws IOException {
 		try {
 			CommPortIdentifier identifier = CommPortIdentifier.getPortIdentifier(port);
 			CommPort commPort = identifier.open("PG3B", timeout);
-			if (!(commPort instanceof SerialPort)) throw new IOException("Port is not serial: " + port);
+			if (!(commPort instanceof SerialPort)) {
+				commPort.close();
+				throw new IOException("Port is not serial: " + port);
+			}
 
 			serialPort = (SerialPort)commPort;
 			serialPort.setSerialPortParams(230400, SerialPort.DATABITS_8, SerialPort.STOPBITS_1, SerialPort.PARITY_NONE);
@@ -86,133 +179,785 @@ public class PG3B extends Device {
 			serialPort.enableReceiveTimeout(timeout);
 			serialPort.enableReceiveThreshold(0);
 
-			Charset ascii = Charset.forName("ASCII");
-			input = new BufferedReader(new InputStreamReader(serialPort.getInputStream(), ascii), 256);
-			output = new OutputStreamWriter(serialPort.getOutputStream(), ascii);
+			input = serialPort.getInputStream();
+			output = serialPort.getOutputStream();
+		} catch (IOException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			throw new IOException("Error opening port: " + port, ex);
+		}
 
-			buffer[0] = 'X';
-			buffer[1] = ' ';
-			// 2, 3, 4, 5: sequence number
-			buffer[6] = ' ';
-			// For sending... 7: command code, 8: space, 9+: command arguments
-			// For receiving... 7, 8: OK
+		if (INFO) info("Connected to PG3B on port: " + port);
+	}
 
-			if (INFO) info("Connected to PG3B on port: " + port);
+	/**
+	 * Sets up the PG3B after the connection is opened and negotiates the protocol. A new connection always starts with the ASCII
+	 * protocol.
+	 */
+	private void connect () throws IOException {
+		binary = false;
+		received.clear();
+		readingDebug = false;
+		commandByte(Command.setDebugMessagesEnabled, debugEnabled ? 1 : 0);
+		commandByte(Command.setCalibrationEnabled, calibrationEnabled ? 1 : 0);
+		capabilities = readCapabilities();
+		if ((capabilities & CAPABILITY_BINARY) != 0) {
+			// The PG3B acknowledges in ASCII, then expects binary frames.
+			commandByte(Command.setBinaryEnabled, 1);
+			binary = true;
+			if (DEBUG) debug("Binary protocol enabled.");
+		}
+	}
 
-			setDebugEnabled(false);
-			setCalibrationEnabled(true);
+	/**
+	 * When true and communication with the PG3B fails, the connection is reopened in the background. Until it is reopened,
+	 * button and axis changes are not sent but are remembered. Once reconnected, the current state of all buttons and axes is
+	 * sent to the PG3B. Commands that return a response still fail while reconnecting.
+	 */
+	public void setAutoReconnect (boolean autoReconnect) {
+		this.autoReconnect = autoReconnect;
+	}
 
-			config = new PG3BConfig(this);
-		} catch (Exception ex) {
-			close();
-			throw new IOException("Error opening connection on port: " + port, ex);
+	public boolean isAutoReconnect () {
+		return autoReconnect;
+	}
+
+	/**
+	 * Returns true while the connection is being reopened after communication with the PG3B failed.
+	 */
+	public boolean isReconnecting () {
+		return reconnecting;
+	}
+
+	/**
+	 * Starts reopening the connection if auto reconnect is enabled.
+	 * @return true if the PG3B is reconnecting.
+	 */
+	private boolean startReconnect (IOException cause) {
+		if (!autoReconnect || closed) return false;
+		synchronized (reconnectLock) {
+			if (reconnecting) return true;
+			reconnecting = true;
+			if (WARN) warn("Lost connection to PG3B, reconnecting: " + port, cause);
+			reconnectThread = new Thread("PG3BReconnect") {
+				public void run () {
+					reconnect();
+				}
+			};
+			reconnectThread.setDaemon(true);
+			reconnectThread.start();
 		}
+		return true;
+	}
+
+	/**
+	 * Reopens the connection until it succeeds, waiting longer after each failed attempt. Other threads skip sending while
+	 * reconnecting, so the lock is only held for each command and for the replay, never for a whole attempt.
+	 */
+	private void reconnect () {
+		int delay = RECONNECT_DELAY_MIN;
+		boolean wasPipelined = pipelined;
+		while (!closed) {
+			try {
+				Thread readerThread = null;
+				synchronized (lock) {
+					if (pipelined) {
+						pipelined = false;
+						readerThread = this.readerThread;
+						this.readerThread = null;
+					}
+					// The error that started the reconnect is not reported to commands sent once reconnected.
+					pipelineError = null;
+				}
+				// The reader thread notices within the receive timeout.
+				if (readerThread != null) {
+					try {
+						readerThread.join();
+					} catch (InterruptedException ignored) {
+					}
+				}
+				if (serial) {
+					SerialPort oldPort;
+					synchronized (lock) {
+						oldPort = serialPort;
+						serialPort = null;
+					}
+					if (oldPort != null) oldPort.close();
+					openSerialPort();
+				}
+				connect();
+				// The PG3B may have been replaced while disconnected. This is done without the lock, since the config holds its own
+				// monitor while sending commands, which takes the lock.
+				if (config != null) config.invalidate();
+				synchronized (lock) {
+					// Changes made from now on are sent after the replay, which sends those made while reconnecting.
+					reconnecting = false;
+					try {
+						replayState();
+					} catch (IOException ex) {
+						reconnecting = true;
+						throw ex;
+					}
+				}
+				if (wasPipelined) setPipelined(true);
+				stats.reconnected();
+				if (INFO) info("Reconnected to PG3B: " + port);
+				return;
+			} catch (IOException ex) {
+				if (DEBUG) debug("Unable to reconnect to PG3B, retrying in " + delay + "ms: " + port, ex);
+			}
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException ex) {
+				break;
+			}
+			delay = Math.min(delay * 2, RECONNECT_DELAY_MAX);
+		}
+		reconnecting = false;
+	}
+
+	/**
+	 * Sends the current state of all buttons and axes to the PG3B in as few commands as possible. Must be called while holding the
+	 * lock.
+	 */
+	private void replayState () throws IOException {
+		byte[] state;
+		// The state is changed by the thread setting buttons and axes while holding only the state's lock.
+		synchronized (this.state) {
+			state = this.state.clone();
+		}
+		if (isStateSupported()) {
+			post(Command.setState, state);
+			return;
+		}
+		int mask = ((state[0] & 0xFF) << 8) | (state[1] & 0xFF);
+		for (Button button : Button.values()) {
+			int buttonState = (mask & (1 << button.ordinal())) != 0 ? 6 : 7;
+			postWord(Command.action, getActionCode(getActionKey(ActionDevice.xbox, (short)buttonState), (short)button.ordinal()));
+		}
+		for (Axis axis : Axis.values()) {
+			short wiperValue = (short)(state[2 + axis.ordinal()] & 0xFF);
+			postWord(Command.action, getActionCode(getActionKey(ActionDevice.xbox, (short)axis.ordinal()), wiperValue));
+		}
+	}
+
+	/**
+	 * Returns true if commands from the current thread must not be sent because the connection is being reopened.
+	 */
+	private boolean isBlockedByReconnect () {
+		return reconnecting && Thread.currentThread() != reconnectThread;
 	}
 
-	private synchronized byte[] primitive (int length) throws IOException {
+	/**
+	 * Writes the command in the buffer and blocks until the PG3B responds.
+	 * @param response Receives the response payload. May be null.
+	 * @return The number of payload bytes stored in the response buffer.
+	 */
+	private int primitive (Command command, int length, short sequenceNumber, byte[] response, int timeout) throws IOException {
+		long startTime = System.nanoTime();
+		write(length);
+		while (true) {
+			if (!readResponse()) {
+				// Commands that take longer than the receive timeout are given more time.
+				if ((System.nanoTime() - startTime) / 1000000 < timeout) continue;
+				stats.timeout();
+				throw new IOException("Timed out waiting for PG3B to acknowledge command: " + command);
+			}
+			if (responseSequenceNumber == sequenceNumber) {
+				int payloadLength = readPayload(response);
+				stats.commandCompleted(command, System.nanoTime() - startTime);
+				return payloadLength;
+			}
+			// A late response to an earlier command.
+			stats.ignored();
+			readPayload(null);
+		}
+	}
+
+	private void write (int length) throws IOException {
 		output.write(buffer, 0, length);
 		output.flush();
-		if (TRACE) trace("Sent: " + new String(buffer, 0, length - 1));
+		stats.commandSent(length);
+		if (TRACE) {
+			if (binary)
+				trace("Sent: " + bytesToHexString(buffer, 0, length));
+			else {
+				// Raw data may follow the command.
+				int end = 0;
+				while (buffer[end] != '\r')
+					end++;
+				String sent = new String(buffer, 0, end);
+				if (end < length - 1) sent += " " + bytesToHexString(buffer, end + 1, length - end - 1);
+				trace("Sent: " + sent);
+			}
+		}
+	}
 
-		buffer[7] = 'O';
-		buffer[8] = 'K';
-		String responsePrefix = new String(buffer, 0, 9);
+	/**
+	 * Reads until a response is received. Its sequence number is stored and its payload is left in the ring buffer until
+	 * {@link #readPayload(byte[])} is called.
+	 * @return false if the receive timeout elapsed before a response was received. If this happens while reading debug messages,
+	 *         the next call continues with the same response.
+	 */
+	private boolean readResponse () throws IOException {
+		if (binary) return readFrame();
+		int start, end;
+		if (readingDebug) {
+			end = lineEnd();
+			if (end == -1) return false;
+			start = 0;
+		} else {
+			while (true) {
+				end = lineEnd();
+				if (end == -1) return false;
+				if (end >= 9 && received.get(0) == 'X' && received.get(7) == 'O' && received.get(8) == 'K') break;
+				if (TRACE) trace("Ignored: " + received.toString(0, end));
+				stats.ignored();
+				received.skip(end + 1);
+			}
+			responseSequenceNumber = (short)((charToDigit[received.get(2)] << 12) | (charToDigit[received.get(3)] << 8)
+				| (charToDigit[received.get(4)] << 4) | charToDigit[received.get(5)]);
+			if (TRACE) trace("Received: " + received.toString(0, end));
+			start = 9;
+		}
+		if (debugEnabled || readingDebug) {
+			// Debug messages are sent after the acknowledgement and before the payload.
+			while (start < end && received.get(start) != ' ') {
+				stats.debugMessage();
+				if (TRACE) {
+					String message = received.toString(start, end);
+					if (message.length() >= 3) message += " (" + Integer.parseInt(message.substring(2), 16) + ")";
+					trace("Debug: " + message);
+				}
+				received.skip(end + 1);
+				start = 0;
+				end = lineEnd();
+				if (end == -1) {
+					readingDebug = true;
+					return false;
+				}
+			}
+		}
+		readingDebug = false;
+		payloadStart = start + 1;
+		payloadLength = Math.max(0, (end - payloadStart) / 2);
+		responseLength = end + 1;
+		return true;
+	}
+
+	/**
+	 * Returns the index of the next newline in the ring buffer, reading from the PG3B as needed.
+	 * @return -1 if the receive timeout elapsed before a complete line was received.
+	 */
+	private int lineEnd () throws IOException {
+		int start = 0;
 		while (true) {
-			String response = input.readLine();
-			if (response == null) throw new IOException("Connection was closed.");
-			if (response.startsWith(responsePrefix)) {
-				if (debugEnabled) {
-					response = response.substring(9);
-					while (true) {
-						char c = response.length() == 0 ? '\n' : response.charAt(0);
-						if (c == '\n') {
-							if (TRACE) trace("Received: " + responsePrefix);
-							return new byte[0];
-						}
-						if (c == ' ') {
-							if (TRACE) trace("Received: " + responsePrefix + response);
-							return hexStringToBytes(response, 1);
-						}
-						if (TRACE) {
-							if (response.length() >= 3) response += " (" + Integer.parseInt(response.substring(2), 16) + ")";
-							trace("Debug: " + response);
-						}
-						response = input.readLine();
-						if (response == null) throw new IOException("Connection was closed.");
-					}
-				} else if (TRACE) {
-					trace("Received: " + response);
+			int end = received.indexOf('\n', start);
+			if (end != -1) return end;
+			if (received.isFull()) {
+				if (DEBUG) debug("Discarded PG3B data without a line ending.");
+				stats.ignored();
+				received.clear();
+			}
+			start = received.size();
+			if (!fill()) return -1;
+		}
+	}
+
+	/**
+	 * Reads until a binary reply frame is received. Frames with an invalid CRC are discarded and debug message frames are logged.
+	 * @return false if the receive timeout elapsed before a frame was received.
+	 */
+	private boolean readFrame () throws IOException {
+		while (true) {
+			if (!require(2)) return false;
+			if (received.get(0) != FRAME_SYNC) {
+				received.skip(1);
+				continue;
+			}
+			int length = received.get(1);
+			if (length < FRAME_HEADER_SIZE) {
+				received.skip(1);
+				continue;
+			}
+			if (!require(length + 3)) return false;
+			int crc8 = 0xFF;
+			for (int i = 1, n = length + 2; i < n; i++)
+				crc8 = PG3BConfig.updateCRC(crc8, received.get(i));
+			if (crc8 != received.get(length + 2)) {
+				if (DEBUG) debug("Discarded PG3B frame with invalid CRC.");
+				stats.crcError();
+				received.skip(1);
+				continue;
+			}
+
+			short sequenceNumber = (short)((received.get(2) << 8) | received.get(3));
+			int code = received.get(4);
+			payloadStart = 5;
+			payloadLength = length - FRAME_HEADER_SIZE;
+			responseLength = length + 3;
+			if (sequenceNumber == FRAME_LOG) {
+				if (TRACE) trace("Debug: " + (char)code + " " + ringToHexString(payloadStart, payloadLength));
+				stats.debugMessage();
+				received.skip(responseLength);
+				continue;
+			}
+			if (code == FRAME_DATA) {
+				if (TRACE) trace("Data: " + (sequenceNumber & 0xFFFF) + " " + ringToHexString(payloadStart, payloadLength));
+				if (sequenceNumber != dataSequenceNumber) dataLength = 0;
+				dataSequenceNumber = sequenceNumber;
+				for (int i = 0; i < payloadLength && dataLength < data.length; i++)
+					data[dataLength++] = (byte)received.get(payloadStart + i);
+				received.skip(responseLength);
+				continue;
+			}
+			if (code != FRAME_REPLY) {
+				if (TRACE) trace("Ignored: " + ringToHexString(0, responseLength));
+				stats.ignored();
+				received.skip(responseLength);
+				continue;
+			}
+			if (TRACE) trace("Received: " + (sequenceNumber & 0xFFFF) + " " + ringToHexString(payloadStart, payloadLength));
+			responseSequenceNumber = sequenceNumber;
+			return true;
+		}
+	}
+
+	/**
+	 * Reads from the PG3B until the ring buffer has at least the specified number of bytes.
+	 * @return false if the receive timeout elapsed first.
+	 */
+	private boolean require (int count) throws IOException {
+		while (received.size() < count)
+			if (!fill()) return false;
+		return true;
+	}
+
+	/**
+	 * Reads from the PG3B into the ring buffer.
+	 * @return false if the receive timeout elapsed before any bytes were read.
+	 * @throws EOFException If the connection was closed.
+	 */
+	private boolean fill () throws IOException {
+		int size = received.size();
+		if (!received.fill(input)) return false;
+		stats.bytesReceived(received.size() - size);
+		return true;
+	}
+
+	/**
+	 * Decodes the payload of the response read by {@link #readResponse()} into the buffer and discards the response. In binary
+	 * mode, the payloads of any data frames for the response come first.
+	 * @param response May be null to discard the payload.
+	 * @return The number of payload bytes stored in the buffer.
+	 */
+	private int readPayload (byte[] response) {
+		int length = 0;
+		if (response != null) {
+			if (binary) {
+				int offset = 0;
+				if (dataLength > 0 && dataSequenceNumber == responseSequenceNumber) {
+					offset = Math.min(dataLength, response.length);
+					System.arraycopy(data, 0, response, 0, offset);
+				}
+				length = Math.min(offset + payloadLength, response.length);
+				for (int i = offset; i < length; i++)
+					response[i] = (byte)received.get(payloadStart + i - offset);
+			} else {
+				length = Math.min(payloadLength, response.length);
+				for (int i = 0, c = payloadStart; i < length; i++, c += 2)
+					response[i] = (byte)((charToDigit[received.get(c)] << 4) + charToDigit[received.get(c + 1)]);
+			}
+		}
+		dataLength = 0;
+		received.skip(responseLength);
+		return length;
+	}
+
+	private short nextSequenceNumber () {
+		short sequenceNumber = this.sequenceNumber++;
+		// The last sequence number is used by debug messages in binary mode.
+		if (sequenceNumber == FRAME_LOG) sequenceNumber = this.sequenceNumber++;
+		return sequenceNumber;
+	}
+
+	/**
+	 * Writes the command in the buffer without waiting for the PG3B to respond. The PG3B's acknowledgement is matched to the
+	 * command by sequence number on the reader thread. Blocks if too many commands are in flight. Must be called while
+	 * holding the lock.
+	 * @param pending May be null if nothing will wait for the acknowledgement.
+	 * @param timeout The number of milliseconds the PG3B has to acknowledge the command.
+	 */
+	private void sendPipelined (Command command, short sequenceNumber, int length, PendingCommand pending, int timeout)
+		throws IOException {
+		// Reserve the sequence number's slot, waiting if the PG3B has fallen too far behind.
+		int index = sequenceNumber & (MAX_IN_FLIGHT - 1);
+		synchronized (inFlight) {
+			long endTime = System.currentTimeMillis() + timeout;
+			while (true) {
+				throwPipelineError();
+				PendingCommand previous = inFlight[index];
+				if (previous == null) break;
+				long remaining = endTime - System.currentTimeMillis();
+				if (remaining <= 0) {
+					stats.timeout();
+					throw new IOException("Timed out waiting for PG3B to acknowledge command: " + previous);
+				}
+				try {
+					inFlight.wait(remaining);
+				} catch (InterruptedException ex) {
+					throw new IOException("Interrupted waiting for PG3B to acknowledge command: " + previous);
 				}
-				return hexStringToBytes(response, 10);
 			}
+			if (pending == null) {
+				// The slot is free, so its pooled command is no longer in use.
+				pending = pendingPool[index];
+				pending.reset(command, sequenceNumber);
+			}
+			pending.sendTime = System.nanoTime();
+			pending.timeout = timeout;
+			inFlight[index] = pending;
+		}
+
+		try {
+			write(length);
+		} catch (IOException ex) {
+			synchronized (inFlight) {
+				inFlight[index] = null;
+				inFlight.notifyAll();
+			}
+			throw ex;
 		}
 	}
 
-	synchronized byte[] command (Command command, byte[] commandArgument) throws IOException {
+	/**
+	 * Encodes a command into the buffer using the current protocol.
+	 * @return The number of bytes in the buffer.
+	 */
+	private int encode (Command command, short sequenceNumber, byte[] arguments) {
+		return binary ? encodeFrame(command, sequenceNumber, arguments) : encodeCommand(command, sequenceNumber, arguments);
+	}
+
+	/**
+	 * Encodes an ASCII command into the buffer: "X ssss C aa..\r".
+	 * @return The number of bytes in the buffer.
+	 */
+	private int encodeCommand (Command command, short sequenceNumber, byte[] arguments) {
+		buffer[0] = 'X';
+		buffer[1] = ' ';
 		int b = (sequenceNumber >> 8) & 0xFF;
 		buffer[2] = hex[b / 16];
 		buffer[3] = hex[b % 16];
 		b = sequenceNumber & 0xFF;
 		buffer[4] = hex[b / 16];
 		buffer[5] = hex[b % 16];
-		buffer[7] = command.code;
+		buffer[6] = ' ';
+		buffer[7] = (byte)command.code;
 		buffer[8] = ' ';
 		int c = 9;
-		for (int i = 0, n = commandArgument.length; i < n; i++) {
-			b = commandArgument[i] & 0xFF;
+		for (int i = 0, n = arguments.length; i < n; i++) {
+			b = arguments[i] & 0xFF;
 			buffer[c++] = hex[b / 16];
 			buffer[c++] = hex[b % 16];
 		}
 		buffer[c++] = '\r';
-		sequenceNumber++;
-		return primitive(c);
+		return c;
 	}
 
-	synchronized byte[] commandWord (Command command, int commandArgument) throws IOException {
-		int b = (sequenceNumber >> 8) & 0xFF;
-		buffer[2] = hex[b / 16];
-		buffer[3] = hex[b % 16];
-		b = sequenceNumber & 0xFF;
-		buffer[4] = hex[b / 16];
-		buffer[5] = hex[b % 16];
-		buffer[7] = command.code;
-		buffer[8] = ' ';
-		b = (commandArgument >> 8) & 0xFF;
-		buffer[9] = hex[b / 16];
-		buffer[10] = hex[b % 16];
-		b = commandArgument & 0xFF;
-		buffer[11] = hex[b / 16];
-		buffer[12] = hex[b % 16];
-		buffer[13] = '\r';
-		sequenceNumber++;
-		return primitive(14);
-	}
-
-	synchronized byte[] commandByte (Command command, int commandArgument) throws IOException {
-		int b = (sequenceNumber >> 8) & 0xFF;
-		buffer[2] = hex[b / 16];
-		buffer[3] = hex[b % 16];
-		b = sequenceNumber & 0xFF;
-		buffer[4] = hex[b / 16];
-		buffer[5] = hex[b % 16];
-		buffer[7] = command.code;
-		buffer[8] = ' ';
-		b = commandArgument & 0xFF;
-		buffer[9] = hex[b / 16];
-		buffer[10] = hex[b % 16];
-		buffer[11] = '\r';
-		sequenceNumber++;
-		return primitive(12);
+	/**
+	 * Encodes a binary frame into the buffer: sync, length, sequence number, command code, arguments, CRC. The length counts the
+	 * bytes from the sequence number through the arguments and the CRC covers the bytes from the length through the arguments.
+	 * @return The number of bytes in the buffer.
+	 */
+	private int encodeFrame (Command command, short sequenceNumber, byte[] arguments) {
+		int n = arguments.length;
+		buffer[0] = (byte)FRAME_SYNC;
+		buffer[1] = (byte)(FRAME_HEADER_SIZE + n);
+		buffer[2] = (byte)(sequenceNumber >> 8);
+		buffer[3] = (byte)sequenceNumber;
+		buffer[4] = (byte)command.code;
+		System.arraycopy(arguments, 0, buffer, 5, n);
+		buffer[5 + n] = PG3BConfig.calculateCRC(buffer, 1, FRAME_HEADER_SIZE + n + 1);
+		return 6 + n;
+	}
+
+	/**
+	 * Sends a command and blocks until the PG3B acknowledges it.
+	 * @param response Receives the response payload. May be null.
+	 * @return The number of payload bytes stored in the response buffer.
+	 */
+	int command (Command command, byte[] arguments, byte[] response) throws IOException {
+		return command(command, arguments, null, response, timeout);
+	}
+
+	/**
+	 * Sends a command followed by raw data and blocks until the PG3B acknowledges it.
+	 * @param data Written as is after the command. May be null.
+	 * @param response Receives the response payload. May be null.
+	 * @param timeout The number of milliseconds the PG3B has to acknowledge the command.
+	 * @return The number of payload bytes stored in the response buffer.
+	 */
+	int command (Command command, byte[] arguments, byte[] data, byte[] response, int timeout) throws IOException {
+		if (isBlockedByReconnect()) throw new IOException("Reconnecting to PG3B: " + port);
+		PendingCommand pending;
+		try {
+			synchronized (lock) {
+				throwPipelineError();
+				short sequenceNumber = nextSequenceNumber();
+				int length = encode(command, sequenceNumber, arguments);
+				if (data != null) {
+					System.arraycopy(data, 0, buffer, length, data.length);
+					length += data.length;
+				}
+				if (!pipelined) return primitive(command, length, sequenceNumber, response, timeout);
+				pending = new PendingCommand(command, sequenceNumber, response);
+				sendPipelined(command, sequenceNumber, length, pending, timeout);
+			}
+			try {
+				return pending.await(timeout);
+			} catch (IOException ex) {
+				if (!pending.isDone()) stats.timeout();
+				throw ex;
+			}
+		} catch (IOException ex) {
+			if (Thread.currentThread() != reconnectThread) startReconnect(ex);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Sends a command and blocks until the PG3B acknowledges it.
+	 * @return The response payload, or null if the command has no response payload.
+	 */
+	byte[] command (Command command, byte[] arguments) throws IOException {
+		byte[] response = new byte[MAX_PAYLOAD];
+		int length = command(command, arguments, response);
+		if (length == 0) return null;
+		return Arrays.copyOf(response, length);
+	}
+
+	void commandWord (Command command, int argument) throws IOException {
+		command(command, new byte[] {(byte)(argument >> 8), (byte)argument}, null);
+	}
+
+	void commandByte (Command command, int argument) throws IOException {
+		command(command, new byte[] {(byte)argument}, null);
 	}
 
-	private byte[] hexStringToBytes (String s, int start) {
-		int length = s.length();
-		int byteCount = (length - start) / 2;
-		if (byteCount == 0) return null;
-		byte[] bytes = new byte[byteCount];
-		for (int i = start, ii = 0; i < length; i += 2, ii++)
-			bytes[ii] = (byte)((charToDigit[s.charAt(i)] << 4) + charToDigit[s.charAt(i + 1)]);
-		return bytes;
+	/**
+	 * Sends a command, discarding any response payload. When pipelined this does not wait for the PG3B's acknowledgement and
+	 * does not allocate. While reconnecting the command is not sent.
+	 * @throws IOException When communication with the PG3B fails and auto reconnect is disabled.
+	 */
+	void post (Command command, byte[] arguments) throws IOException {
+		if (isBlockedByReconnect()) return;
+		try {
+			synchronized (lock) {
+				throwPipelineError();
+				short sequenceNumber = nextSequenceNumber();
+				int length = encode(command, sequenceNumber, arguments);
+				if (pipelined)
+					sendPipelined(command, sequenceNumber, length, null, timeout);
+				else
+					primitive(command, length, sequenceNumber, null, timeout);
+			}
+		} catch (IOException ex) {
+			if (Thread.currentThread() == reconnectThread || !startReconnect(ex)) throw ex;
+		}
+	}
+
+	void postWord (Command command, int argument) throws IOException {
+		if (isBlockedByReconnect()) return;
+		synchronized (lock) {
+			wordArgument[0] = (byte)(argument >> 8);
+			wordArgument[1] = (byte)argument;
+			post(command, wordArgument);
+		}
+	}
+
+	/**
+	 * Reads responses from the PG3B and completes the pending command with the matching sequence number.
+	 */
+	private void readResponses () {
+		try {
+			while (pipelined) {
+				if (!readResponse()) {
+					// The receive timeout elapsed without a response.
+					PendingCommand overdue = getOverdue();
+					if (overdue == null) continue;
+					stats.timeout();
+					throw new IOException("Timed out waiting for PG3B to acknowledge command: " + overdue);
+				}
+				short sequenceNumber = responseSequenceNumber;
+				int index = sequenceNumber & (MAX_IN_FLIGHT - 1);
+				PendingCommand pending;
+				synchronized (inFlight) {
+					pending = inFlight[index];
+					if (pending != null && pending.sequenceNumber != sequenceNumber) pending = null;
+				}
+				if (pending == null) {
+					readPayload(null);
+					stats.ignored();
+					if (DEBUG) debug("Unexpected PG3B response: " + (sequenceNumber & 0xFFFF));
+					continue;
+				}
+				// The slot stays reserved until the payload is stored, so the command can't be reused before it completes.
+				int payloadLength = readPayload(pending.response);
+				stats.commandCompleted(pending.command, System.nanoTime() - pending.sendTime);
+				pending.complete(payloadLength);
+				synchronized (inFlight) {
+					inFlight[index] = null;
+					inFlight.notifyAll();
+				}
+			}
+		} catch (IOException ex) {
+			failPending(ex);
+			if (pipelined && !startReconnect(ex)) {
+				// Nothing restarts the reader, so commands are sent synchronously again. The lock is not taken, since
+				// setPipelined(false) holds it while waiting for this thread to end.
+				pipelined = false;
+				if (ERROR) error("Error reading from PG3B.", ex);
+			}
+		}
+	}
+
+	/**
+	 * Returns a pipelined command that the PG3B has not acknowledged within the timeout, or null.
+	 */
+	private PendingCommand getOverdue () {
+		long now = System.nanoTime();
+		synchronized (inFlight) {
+			for (int i = 0; i < MAX_IN_FLIGHT; i++) {
+				PendingCommand pending = inFlight[i];
+				if (pending != null && (now - pending.sendTime) / 1000000 > pending.timeout) return pending;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Throws the error that stopped the reader thread, if any. The error is only reported once.
+	 */
+	private void throwPipelineError () throws IOException {
+		IOException ex = pipelineError;
+		if (ex == null) return;
+		synchronized (inFlight) {
+			ex = pipelineError;
+			if (ex == null) return;
+			pipelineError = null;
+		}
+		throw new IOException("Error communicating with PG3B.", ex);
+	}
+
+	private void failPending (IOException ex) {
+		synchronized (inFlight) {
+			pipelineError = ex;
+			for (int i = 0; i < MAX_IN_FLIGHT; i++) {
+				PendingCommand pending = inFlight[i];
+				if (pending == null) continue;
+				inFlight[i] = null;
+				pending.fail(ex);
+			}
+			inFlight.notifyAll();
+		}
+	}
+
+	/**
+	 * Blocks until the PG3B has acknowledged all pipelined commands.
+	 * @throws IOException When a pipelined command failed or the PG3B did not respond in time.
+	 */
+	public void awaitPending () throws IOException {
+		synchronized (inFlight) {
+			long endTime = System.currentTimeMillis() + timeout;
+			outer:
+			while (true) {
+				throwPipelineError();
+				for (int i = 0; i < MAX_IN_FLIGHT; i++) {
+					PendingCommand pending = inFlight[i];
+					if (pending == null) continue;
+					long remaining = endTime - System.currentTimeMillis();
+					if (remaining <= 0) {
+						stats.timeout();
+						throw new IOException("Timed out waiting for PG3B to acknowledge command: " + pending);
+					}
+					try {
+						inFlight.wait(remaining);
+					} catch (InterruptedException ex) {
+						throw new IOException("Interrupted waiting for PG3B to acknowledge command: " + pending);
+					}
+					continue outer;
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * When true, commands are written without waiting for the previous command to be acknowledged. Up to 32 commands can be in
+	 * flight at once and a reader thread matches each acknowledgement to its command by sequence number. Button and axis changes
+	 * do not wait for their acknowledgement, so errors are reported once by the next command. If the reader thread fails and
+	 * auto reconnect is disabled, pipelining is turned off.
+	 */
+	public void setPipelined (boolean pipelined) throws IOException {
+		synchronized (lock) {
+			if (this.pipelined == pipelined) return;
+			if (pipelined) {
+				// A reader thread that stopped itself after an error may still be finishing.
+				if (readerThread != null) {
+					try {
+						readerThread.join();
+					} catch (InterruptedException ignored) {
+					}
+				}
+				pipelineError = null;
+				this.pipelined = true;
+				readerThread = new Thread("PG3BReader") {
+					public void run () {
+						readResponses();
+					}
+				};
+				readerThread.setDaemon(true);
+				readerThread.start();
+				if (DEBUG) debug("Pipelining enabled.");
+				return;
+			}
+			try {
+				awaitPending();
+			} finally {
+				this.pipelined = false;
+				// The reader thread notices within the receive timeout. It must be stopped before responses are read synchronously.
+				try {
+					readerThread.join();
+				} catch (InterruptedException ignored) {
+				}
+				readerThread = null;
+			}
+			if (DEBUG) debug("Pipelining disabled.");
+		}
+	}
+
+	public boolean isPipelined () {
+		return pipelined;
+	}
+
+	private String bytesToHexString (byte[] bytes, int start, int length) {
+		StringBuilder buffer = new StringBuilder(length * 2);
+		for (int i = start, n = start + length; i < n; i++) {
+			int b = bytes[i] & 0xFF;
+			buffer.append((char)hex[b / 16]);
+			buffer.append((char)hex[b % 16]);
+		}
+		return buffer.toString();
+	}
+
+	private String ringToHexString (int start, int length) {
+		StringBuilder buffer = new StringBuilder(length * 2);
+		for (int i = start, n = start + length; i < n; i++) {
+			int b = received.get(i);
+			buffer.append((char)hex[b / 16]);
+			buffer.append((char)hex[b % 16]);
+		}
+		return buffer.toString();
 	}
 
 	short getActionCode (short key, short value) {
@@ -225,32 +970,148 @@ public class PG3B extends Device {
 	}
 
 	protected void setButton (Button button, boolean pressed) throws IOException {
-		int state = pressed ? 6 : 7;
-		short actionKey = getActionKey(ActionDevice.xbox, (short)state);
+		synchronized (state) {
+			int mask = ((state[0] & 0xFF) << 8) | (state[1] & 0xFF);
+			if (pressed)
+				mask |= 1 << button.ordinal();
+			else
+				mask &= ~(1 << button.ordinal());
+			state[0] = (byte)(mask >> 8);
+			state[1] = (byte)mask;
+		}
+		if (collectingState) {
+			stateChanged = true;
+			return;
+		}
+
+		int buttonState = pressed ? 6 : 7;
+		short actionKey = getActionKey(ActionDevice.xbox, (short)buttonState);
 		short actionCode = getActionCode(actionKey, (short)button.ordinal());
-		commandWord(Command.action, actionCode);
+		postWord(Command.action, actionCode);
 	}
 
 	protected void setAxis (Axis axis, float state) throws IOException {
-		float wiperValue;
-		if (axis.isTrigger())
-			wiperValue = 255 - state * 255;
-		else
-			wiperValue = 255 - (state + 1) * 127;
- 
+		int wiperValue = getWiperValue(axis, state);
+		synchronized (this.state) {
+			this.state[2 + axis.ordinal()] = (byte)wiperValue;
+		}
+		if (collectingState) {
+			stateChanged = true;
+			return;
+		}
+
 		short actionKey = getActionKey(ActionDevice.xbox, (short)axis.ordinal());
 		short actionCode = getActionCode(actionKey, (short)wiperValue);
-		commandWord(Command.action, actionCode);
+		postWord(Command.action, actionCode);
+	}
+
+	/**
+	 * The PG3B sets each axis using an 8-bit wiper value.
+	 */
+	protected int quantize (Axis axis, float state) {
+		return getWiperValue(axis, state);
+	}
+
+	static private int getWiperValue (Axis axis, float state) {
+		if (axis.isTrigger()) return (int)(255 - state * 255);
+		return (int)(255 - (state + 1) * 127);
+	}
+
+	/**
+	 * When the PG3B supports the state command, all buttons and axes changed in the frame are sent to the PG3B as a single
+	 * command.
+	 */
+	protected void beginFrame () {
+		if (isStateSupported()) collectingState = true;
+	}
+
+	protected void commitFrame () throws IOException {
+		if (!collectingState) return;
+		collectingState = false;
+		if (stateChanged) sendState();
+	}
+
+	protected void writeChanges (int buttonChanges, boolean[] buttonStates, int axisChanges, float[] axisStates)
+		throws IOException {
+		// While reconnecting nothing is sent, only the state is remembered for the replay.
+		if (isBlockedByReconnect()) {
+			super.writeChanges(buttonChanges, buttonStates, axisChanges, axisStates);
+			return;
+		}
+		// The reconnect thread never replays a partially written frame.
+		synchronized (lock) {
+			super.writeChanges(buttonChanges, buttonStates, axisChanges, axisStates);
+		}
+	}
+
+	private void sendState () throws IOException {
+		stateChanged = false;
+		post(Command.setState, state);
+	}
+
+	private int readCapabilities () throws IOException {
+		byte[] response = command(Command.getCapabilities, new byte[0]);
+		// Firmware without the capabilities command acknowledges it without a payload.
+		if (response == null || response.length == 0) return 0;
+		return response[0] & 0xFF;
+	}
+
+	/**
+	 * Returns true if the PG3B firmware can set all buttons and axes with a single command.
+	 */
+	public boolean isStateSupported () {
+		return (capabilities & CAPABILITY_STATE) != 0;
+	}
+
+	/**
+	 * Returns true if the PG3B firmware can transfer multiple pages of config memory with a single command.
+	 */
+	public boolean isBulkSupported () {
+		return (capabilities & CAPABILITY_BULK) != 0;
+	}
+
+	int getTimeout () {
+		return timeout;
+	}
+
+	/**
+	 * Returns true if commands are sent to the PG3B as binary frames rather than ASCII hex. The binary protocol is used when the
+	 * PG3B firmware supports it.
+	 */
+	public boolean isBinary () {
+		return binary;
+	}
+
+	/**
+	 * Returns the latency, throughput and error statistics for the connection to the PG3B.
+	 */
+	public LinkStats getStats () {
+		return stats;
 	}
 
 	public void close () {
-		if (serialPort != null) serialPort.close();
+		closed = true;
+		pipelined = false;
+		synchronized (reconnectLock) {
+			if (reconnectThread != null) reconnectThread.interrupt();
+		}
+		if (serialPort != null)
+			serialPort.close();
+		else {
+			try {
+				if (input != null) input.close();
+				if (output != null) output.close();
+			} catch (IOException ignored) {
+			}
+		}
+		failPending(new IOException("Connection was closed."));
 	}
 
 	/**
 	 * Returns true if the PG3B is connected and responding.
 	 */
 	public boolean isConnected () {
+		if (reconnecting) return false;
 		try {
 			commandByte(Command.setDebugMessagesEnabled, debugEnabled ? 1 : 0);
 			return true;
@@ -5,6 +5,7 @@ import static com.esotericsoftware.minlog.Log.*;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 
 import com.esotericsoftware.controller.device.Axis;
 
@@ -25,6 +26,11 @@ public class PG3BConfig {
 	static private final byte CONFIG_PAGE = 0;
 	static private final int CALIBRATION_PAGES = 8;
 	static private final int CALIBRATION_SIZE = CALIBRATION_PAGES * PAGE_SIZE;
+	// The most pages moved by a single bulk command.
+	static private final int BULK_PAGES = 8;
+	// EEPROM writes take about 3.4ms per byte.
+	static private final int WRITE_MILLIS_PER_PAGE = PAGE_SIZE * 4;
+	static private final int PAGE_COUNT = 1 + Axis.values().length * CALIBRATION_PAGES;
 
 	static private final int[] crcTable = {
 	// x^8 + x^2 + x^1 + x^0
@@ -64,12 +70,16 @@ public class PG3BConfig {
 
 	private final PG3B pg3b;
 	private byte[] data;
+	// Mirror of the PG3B's config memory. A page is null until it has been read from or written to the PG3B.
+	private final byte[][] pages = new byte[PAGE_COUNT][];
+	// Incremented each time the contents of a page in the mirror change.
+	private final int[] pageVersions = new int[PAGE_COUNT];
 
 	public PG3BConfig (PG3B pg3b) throws IOException {
 		this.pg3b = pg3b;
 
 		try {
-			data = readPage(CONFIG_PAGE);
+			data = readCached(CONFIG_PAGE, 1);
 			String magicNumber = new String(data, INDEX_MAGIC, MAGIC_NUMBER.length(), Charset.forName("ASCII"));
 			if (!magicNumber.equals(MAGIC_NUMBER)) throw new IOException("Invalid magic number for config page: " + magicNumber);
 			byte crc = calculateCRC(data, INDEX_CRC + 1, data[INDEX_SIZE] - 1);
@@ -112,6 +122,75 @@ public class PG3BConfig {
 		}
 	}
 
+	/**
+	 * Writes consecutive pages of configuration memory to the PG3B. When the PG3B supports bulk transfers, the pages are written
+	 * with a single command and verified using the CRC the PG3B computes from the memory after writing.
+	 * @param pageData The data for all pages, its length must be a multiple of 32.
+	 */
+	void writePages (byte firstPage, byte[] pageData) throws IOException {
+		if (firstPage < 0) throw new IllegalArgumentException("firstPage cannot be <0: " + firstPage);
+		if (pageData == null) throw new IllegalArgumentException("pageData cannot be null.");
+		if (pageData.length == 0 || pageData.length % PAGE_SIZE != 0)
+			throw new IllegalArgumentException("pageData must be a multiple of " + PAGE_SIZE + " bytes: " + pageData.length);
+
+		int pageCount = pageData.length / PAGE_SIZE;
+		if (!pg3b.isBulkSupported()) {
+			byte[] page = new byte[PAGE_SIZE];
+			for (int i = 0; i < pageCount; i++) {
+				System.arraycopy(pageData, i * PAGE_SIZE, page, 0, PAGE_SIZE);
+				writePage((byte)(firstPage + i), page);
+			}
+			return;
+		}
+
+		for (int i = 0; i < pageCount; i += BULK_PAGES) {
+			int count = Math.min(BULK_PAGES, pageCount - i);
+			byte[] data = new byte[count * PAGE_SIZE];
+			System.arraycopy(pageData, i * PAGE_SIZE, data, 0, data.length);
+			byte[] response = new byte[1];
+			int timeout = pg3b.getTimeout() + count * WRITE_MILLIS_PER_PAGE;
+			int length = pg3b.command(Command.writePages, new byte[] {(byte)(firstPage + i), (byte)count}, data, response, timeout);
+			if (length != 1) throw new IOException("Invalid response writing pages: " + (firstPage + i));
+			byte crc = calculateCRC(data, 0, data.length);
+			if (crc != response[0]) {
+				throw new IOException("Failed to verify pages, first page: " + (firstPage + i) + ", expected CRC: "
+					+ Integer.toHexString(crc & 0xff) + ", actual: " + Integer.toHexString(response[0] & 0xff));
+			}
+		}
+	}
+
+	/**
+	 * Reads consecutive pages of configuration memory from the PG3B. When the PG3B supports bulk transfers, the pages are read
+	 * with a single command and checked using a CRC covering all of them.
+	 */
+	byte[] readPages (byte firstPage, int pageCount) throws IOException {
+		if (firstPage < 0) throw new IllegalArgumentException("firstPage cannot be <0: " + firstPage);
+		if (pageCount <= 0) throw new IllegalArgumentException("pageCount must be >0: " + pageCount);
+
+		byte[] pageData = new byte[pageCount * PAGE_SIZE];
+		if (!pg3b.isBulkSupported()) {
+			for (int i = 0; i < pageCount; i++)
+				System.arraycopy(readPage((byte)(firstPage + i)), 0, pageData, i * PAGE_SIZE, PAGE_SIZE);
+			return pageData;
+		}
+
+		for (int i = 0; i < pageCount; i += BULK_PAGES) {
+			int count = Math.min(BULK_PAGES, pageCount - i);
+			int size = count * PAGE_SIZE;
+			byte[] response = new byte[size + 1];
+			int length = pg3b.command(Command.readPages, new byte[] {(byte)(firstPage + i), (byte)count}, null, response, pg3b
+				.getTimeout());
+			if (length != response.length) throw new IOException("Invalid response reading pages: " + (firstPage + i));
+			byte crc = calculateCRC(response, 0, size);
+			if (crc != response[size]) {
+				throw new IOException("CRC check failed, first page: " + (firstPage + i) + ", expected: "
+					+ Integer.toHexString(crc & 0xff) + ", actual: " + Integer.toHexString(response[size] & 0xff));
+			}
+			System.arraycopy(response, 0, pageData, i * PAGE_SIZE, size);
+		}
+		return pageData;
+	}
+
 	/**
 	 * Reads a page of configuration memory from the PG3B.
 	 */
@@ -129,15 +208,97 @@ public class PG3BConfig {
 		return pageData;
 	}
 
-	byte calculateCRC (byte[] data, int start, int length) {
-		int crc8 = 0xFF;
-		for (int i = start; i < start + length; i++) {
-			int index = crc8 ^ data[i];
-			crc8 = crcTable[index & 0xFF];
+	/**
+	 * Returns a copy of consecutive pages from the mirror of the config memory. Only pages that are not yet in the mirror are
+	 * read from the PG3B.
+	 */
+	synchronized byte[] readCached (int firstPage, int pageCount) throws IOException {
+		for (int i = firstPage, n = firstPage + pageCount; i < n; i++) {
+			if (pages[i] != null) continue;
+			// Read the run of missing pages with as few commands as possible.
+			int end = i + 1;
+			while (end < n && pages[end] == null)
+				end++;
+			byte[] pageData = readPages((byte)i, end - i);
+			for (int page = i; page < end; page++) {
+				pages[page] = new byte[PAGE_SIZE];
+				System.arraycopy(pageData, (page - i) * PAGE_SIZE, pages[page], 0, PAGE_SIZE);
+				pageVersions[page]++;
+			}
+			i = end - 1;
+		}
+		byte[] pageData = new byte[pageCount * PAGE_SIZE];
+		for (int i = 0; i < pageCount; i++)
+			System.arraycopy(pages[firstPage + i], 0, pageData, i * PAGE_SIZE, PAGE_SIZE);
+		return pageData;
+	}
+
+	/**
+	 * Writes consecutive pages to the PG3B and the mirror of the config memory. Only pages whose bytes differ from the mirror are
+	 * written, since each EEPROM page write takes over 100ms.
+	 * @return The number of pages written.
+	 */
+	synchronized int writeCached (int firstPage, byte[] pageData) throws IOException {
+		int pageCount = pageData.length / PAGE_SIZE;
+		try {
+			readCached(firstPage, pageCount);
+		} catch (IOException ex) {
+			// Pages that could not be read are written.
+			if (DEBUG) debug("Unable to read PG3B config pages before writing.", ex);
 		}
+		int written = 0;
+		for (int i = 0; i < pageCount; i++) {
+			if (!isPageChanged(firstPage + i, pageData, i)) continue;
+			// Write the run of changed pages with as few commands as possible.
+			int end = i + 1;
+			while (end < pageCount && isPageChanged(firstPage + end, pageData, end))
+				end++;
+			byte[] changed = new byte[(end - i) * PAGE_SIZE];
+			System.arraycopy(pageData, i * PAGE_SIZE, changed, 0, changed.length);
+			// The mirror no longer matches the PG3B if the write fails.
+			for (int page = i; page < end; page++)
+				pages[firstPage + page] = null;
+			writePages((byte)(firstPage + i), changed);
+			for (int page = i; page < end; page++) {
+				pages[firstPage + page] = new byte[PAGE_SIZE];
+				System.arraycopy(pageData, page * PAGE_SIZE, pages[firstPage + page], 0, PAGE_SIZE);
+				pageVersions[firstPage + page]++;
+			}
+			written += end - i;
+			i = end - 1;
+		}
+		return written;
+	}
+
+	private boolean isPageChanged (int page, byte[] pageData, int index) {
+		byte[] cached = pages[page];
+		if (cached == null) return true;
+		for (int i = 0, offset = index * PAGE_SIZE; i < PAGE_SIZE; i++)
+			if (cached[i] != pageData[offset + i]) return true;
+		return false;
+	}
+
+	/**
+	 * Discards the mirror of the config memory, so it is read from the PG3B again when next needed. This is only necessary if the
+	 * PG3B's memory may have been changed by something else. Unsaved changes are kept.
+	 */
+	public synchronized void invalidate () {
+		Arrays.fill(pages, null);
+		for (int i = 0; i < PAGE_COUNT; i++)
+			pageVersions[i]++;
+	}
+
+	static byte calculateCRC (byte[] data, int start, int length) {
+		int crc8 = 0xFF;
+		for (int i = start; i < start + length; i++)
+			crc8 = updateCRC(crc8, data[i]);
 		return (byte)crc8;
 	}
 
+	static int updateCRC (int crc8, int b) {
+		return crcTable[(crc8 ^ b) & 0xFF];
+	}
+
 	public byte getVersion () {
 		return data[INDEX_VERSION];
 	}
@@ -178,31 +339,41 @@ public class PG3BConfig {
 		if (table.length != CALIBRATION_SIZE)
 			throw new IllegalArgumentException("table must be " + CALIBRATION_SIZE + " bytes: " + table.length);
 
-		byte[] pageData = new byte[PAGE_SIZE];
-		int firstPage = axis.ordinal() * CALIBRATION_PAGES + 1;
-		for (int i = 0; i < CALIBRATION_PAGES; i++) {
-			System.arraycopy(table, i * PAGE_SIZE, pageData, 0, PAGE_SIZE);
-			writePage((byte)(firstPage + i), pageData);
-		}
+		int written = writeCached(axis.ordinal() * CALIBRATION_PAGES + 1, table);
 
-		if (DEBUG) debug(axis + " calibration table written.");
+		if (DEBUG) debug(axis + " calibration table written, pages changed: " + written);
 	}
 
+	/**
+	 * Returns a copy of the calibration table for the axis. The table is only read from the PG3B the first time.
+	 */
 	public byte[] getCalibrationTable (Axis axis) throws IOException {
 		if (axis == null) throw new IllegalArgumentException("axis cannot be null.");
 
-		byte[] table = new byte[CALIBRATION_SIZE];
-		int firstPage = axis.ordinal() * CALIBRATION_PAGES + 1;
-		for (int i = 0; i < CALIBRATION_PAGES; i++) {
-			byte[] pageData = readPage((byte)(firstPage + i));
-			System.arraycopy(pageData, 0, table, i * PAGE_SIZE, PAGE_SIZE);
-		}
-		return table;
+		return readCached(axis.ordinal() * CALIBRATION_PAGES + 1, CALIBRATION_PAGES);
+	}
+
+	/**
+	 * Returns a number that changes each time the calibration table for the axis is read from or written to the PG3B, or the
+	 * mirror is invalidated. If it is unchanged, a table previously returned by {@link #getCalibrationTable(Axis)} is still current.
+	 */
+	public synchronized int getCalibrationVersion (Axis axis) {
+		if (axis == null) throw new IllegalArgumentException("axis cannot be null.");
+		int version = 0;
+		for (int i = 0, page = axis.ordinal() * CALIBRATION_PAGES + 1; i < CALIBRATION_PAGES; i++, page++)
+			version += pageVersions[page];
+		return version;
 	}
 
+	/**
+	 * Writes the config page to the PG3B if it differs from what the PG3B has stored.
+	 */
 	public void save () throws IOException {
 		data[INDEX_CRC] = calculateCRC(data, INDEX_CRC + 1, data[INDEX_SIZE] - 1);
-		writePage(CONFIG_PAGE, data);
+		if (writeCached(CONFIG_PAGE, data) == 0) {
+			if (DEBUG) debug("PG3B config unchanged.");
+			return;
+		}
 		if (DEBUG) debug("PG3B config saved.");
 	}
 }
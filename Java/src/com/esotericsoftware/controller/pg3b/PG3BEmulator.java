@@ -0,0 +1,747 @@
+
+package com.esotericsoftware.controller.pg3b;
+
+import static com.esotericsoftware.minlog.Log.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import com.esotericsoftware.controller.device.Axis;
+import com.esotericsoftware.controller.device.Button;
+import com.esotericsoftware.controller.input.Input;
+import com.esotericsoftware.controller.input.XboxController;
+
+/**
+ * Emulates the PG3B firmware so a {@link PG3B} can be used without the hardware. Commands written to the output stream are
+ * executed as they are received and the responses are read from the input stream. The emulated PG3B drives a virtual
+ * {@link XboxController} whose axes follow a configurable wiper curve. Delays can be set for the PG3B to respond and for the
+ * controller to reflect changes.
+ * <p>
+ * Unlike the firmware, the config page is used as soon as it is written rather than after the PG3B restarts. Profiles and the
+ * keyboard, mouse and USB devices are not emulated.
+ */
+public class PG3BEmulator {
+	static private final Button[] buttons = Button.values();
+	static private final Axis[] axes = Axis.values();
+	static private final int PAGE_SIZE = 32;
+	static private final int EEPROM_SIZE = 2048;
+	static private final int BUFFER_SIZE = 128;
+	static private final int INDEX_MODEL = 7;
+	static private final int INDEX_CALIBRATION = 8;
+	static private final int CAPABILITY_STATE = 0x01;
+	static private final int CAPABILITY_BINARY = 0x02;
+	static private final int CAPABILITY_BULK = 0x04;
+	static private final int BULK_PAGES = 8;
+	static private final int FRAME_SYNC = 0xA5;
+	static private final int FRAME_HEADER_SIZE = 3;
+	static private final int FRAME_LOG = 0xFFFF;
+	static private final int BUTTON_COUNT = 15;
+	static private final int AXIS_COUNT = 6;
+	static private final int KEY_PRESS = 6;
+	static private final int KEY_RELEASE = 7;
+
+	private final Pipe toHost = new Pipe();
+	private final OutputStream fromHost = new OutputStream() {
+		public void write (int b) {
+			receive(b & 0xFF);
+		}
+
+		public void write (byte[] bytes, int offset, int length) {
+			for (int i = offset, n = offset + length; i < n; i++)
+				receive(bytes[i] & 0xFF);
+		}
+
+		public void close () {
+			disconnect();
+		}
+	};
+	private final EmulatedController controller = new EmulatedController();
+
+	private final byte[] eeprom = new byte[EEPROM_SIZE];
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int count;
+	// -1: waiting for the sync byte, 0: waiting for the length, 1+: index of the next frame byte.
+	private int frameIndex = -1;
+	private final byte[] reply = new byte[PAGE_SIZE + 1];
+	private int replySize, replySequence;
+	// Bytes of a bulk write still to be received, -1 when not receiving a bulk write.
+	private int bulkRemaining = -1, bulkAddress, bulkPage, bulkCount;
+	private boolean logging, calibrated, wireless, binary;
+	private boolean stateSupported = true, binarySupported = true, bulkSupported = true, connected = true;
+	private long responseDelay;
+	private int commandCount;
+
+	public PG3BEmulator () {
+		for (int i = 0; i < EEPROM_SIZE; i++)
+			eeprom[i] = (byte)0xFF;
+		// Same defaults as the firmware writes when the config is invalid.
+		eeprom[1] = 'P';
+		eeprom[2] = 'G';
+		eeprom[3] = '3';
+		eeprom[4] = 'B';
+		eeprom[5] = 9; // size
+		eeprom[6] = 1; // version
+		eeprom[INDEX_MODEL] = 0;
+		eeprom[INDEX_CALIBRATION] = 0;
+		eeprom[0] = PG3BConfig.calculateCRC(eeprom, 1, 8);
+
+		for (Axis axis : Axis.values()) {
+			if (axis.isTrigger())
+				setWiperCurve(axis, 0.12f, 1.5f);
+			else
+				setWiperCurve(axis, 0.24f, 1.5f);
+		}
+	}
+
+	/**
+	 * Returns the stream the host reads responses from. Reads return no data after the read timeout elapses.
+	 */
+	public InputStream getInputStream () {
+		return toHost;
+	}
+
+	/**
+	 * Returns the stream the host writes commands to. Closing it acts like the serial connection being closed.
+	 */
+	public OutputStream getOutputStream () {
+		return fromHost;
+	}
+
+	/**
+	 * Returns the virtual controller driven by the emulated PG3B.
+	 */
+	public XboxController getController () {
+		return controller;
+	}
+
+	/**
+	 * Sets the number of milliseconds a read from the input stream waits for data. Default is 300.
+	 */
+	public void setReadTimeout (int millis) {
+		toHost.timeout = TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	/**
+	 * Sets the number of nanoseconds before each response can be read by the host. Default is 0.
+	 */
+	public synchronized void setResponseDelay (long nanos) {
+		responseDelay = nanos;
+	}
+
+	/**
+	 * Sets the number of nanoseconds before the controller reflects a change made by the PG3B. Default is 0.
+	 */
+	public void setControllerDelay (long nanos) {
+		controller.delay = nanos;
+	}
+
+	/**
+	 * When false, the PG3B acts like firmware without the state command. Default is true.
+	 */
+	public synchronized void setStateSupported (boolean stateSupported) {
+		this.stateSupported = stateSupported;
+	}
+
+	/**
+	 * When false, the PG3B acts like firmware without the binary protocol. Default is true.
+	 */
+	public synchronized void setBinarySupported (boolean binarySupported) {
+		this.binarySupported = binarySupported;
+	}
+
+	/**
+	 * When false, the PG3B acts like firmware without the bulk page commands. Default is true.
+	 */
+	public synchronized void setBulkSupported (boolean bulkSupported) {
+		this.bulkSupported = bulkSupported;
+	}
+
+	/**
+	 * Sets the controller's axis value for each wiper value the PG3B outputs.
+	 * @param curve Must have 256 values.
+	 */
+	public void setWiperCurve (Axis axis, float[] curve) {
+		if (axis == null) throw new IllegalArgumentException("axis cannot be null.");
+		if (curve == null) throw new IllegalArgumentException("curve cannot be null.");
+		if (curve.length != 256) throw new IllegalArgumentException("curve must have 256 values: " + curve.length);
+		controller.curves[axis.ordinal()] = curve.clone();
+	}
+
+	/**
+	 * Sets a wiper curve that has a deadzone and raises the remaining deflection to an exponent. An exponent of 1 and a deadzone
+	 * of 0 is linear.
+	 */
+	public void setWiperCurve (Axis axis, float deadzone, float exponent) {
+		if (axis == null) throw new IllegalArgumentException("axis cannot be null.");
+		float[] curve = new float[256];
+		for (int wiper = 0; wiper < 256; wiper++) {
+			float value = axis.isTrigger() ? (255 - wiper) / 255f : (255 - wiper) / 127.5f - 1;
+			float magnitude = Math.max(0, (Math.abs(value) - deadzone) / (1 - deadzone));
+			curve[wiper] = Math.signum(value) * (float)Math.pow(magnitude, exponent);
+		}
+		setWiperCurve(axis, curve);
+	}
+
+	/**
+	 * When false, the PG3B acts like its USB connection was lost: commands are discarded and nothing is sent. When connected
+	 * again, the PG3B starts over with the ASCII protocol like the firmware does. Default is true.
+	 */
+	public synchronized void setConnected (boolean connected) {
+		if (this.connected == connected) return;
+		this.connected = connected;
+		disconnect();
+	}
+
+	/**
+	 * Returns the number of commands executed.
+	 */
+	public synchronized int getCommandCount () {
+		return commandCount;
+	}
+
+	/**
+	 * Returns a copy of the PG3B's config memory.
+	 */
+	public synchronized byte[] getEEPROM () {
+		return eeprom.clone();
+	}
+
+	synchronized void receive (int b) {
+		if (!connected) return;
+		if (bulkRemaining > 0) {
+			receivePage(b);
+			return;
+		}
+		if (binary) {
+			receiveFrame(b);
+			return;
+		}
+		if (b == '\r' || b == '\n') {
+			if (count > 0) executeCommand();
+			count = 0;
+			return;
+		}
+		if (b < ' ' || b > '~') return;
+		buffer[count++] = (byte)b;
+		if (count == BUFFER_SIZE) {
+			executeCommand();
+			count = 0;
+		}
+	}
+
+	private void receiveFrame (int b) {
+		if (frameIndex == -1) {
+			if (b == FRAME_SYNC) frameIndex = 0;
+			return;
+		}
+		if (frameIndex == 0) {
+			if (b < FRAME_HEADER_SIZE || b >= BUFFER_SIZE) {
+				frameIndex = -1;
+				return;
+			}
+			buffer[0] = (byte)b;
+			frameIndex = 1;
+			return;
+		}
+		int length = buffer[0] & 0xFF;
+		if (frameIndex <= length) {
+			buffer[frameIndex++] = (byte)b;
+			return;
+		}
+		frameIndex = -1;
+		if ((byte)b == PG3BConfig.calculateCRC(buffer, 0, length + 1))
+			executeFrame();
+		else if (DEBUG) debug("PG3B emulator discarded frame with invalid CRC.");
+	}
+
+	synchronized void disconnect () {
+		// A new connection always starts with the ASCII protocol.
+		binary = false;
+		count = 0;
+		frameIndex = -1;
+		bulkRemaining = -1;
+		toHost.clear();
+	}
+
+	private void executeCommand () {
+		if (buffer[0] != 'X') return;
+		commandCount++;
+
+		int command = buffer[7];
+		int word0 = (hexToByte(9) << 8) | hexToByte(11);
+		int byte0 = hexToByte(9);
+		int byte1 = hexToByte(11);
+		buffer[7] = 'O';
+		buffer[8] = 'K';
+		toHost.write(buffer, 0, 9);
+		switch (command) {
+		case 'A':
+			performAction(word0);
+			break;
+		case 'B':
+			if (bulkSupported) readPages(byte0, byte1);
+			break;
+		case 'C':
+			calibrated = byte0 > 0;
+			break;
+		case 'D':
+			logging = byte0 > 0;
+			break;
+		case 'G':
+			wireless = byte0 > 0;
+			break;
+		case 'M':
+			if (binarySupported) binary = byte0 > 0;
+			break;
+		case 'R':
+			readPage(byte0);
+			break;
+		case 'T':
+			if (stateSupported) {
+				for (int i = 0; i < AXIS_COUNT; i++)
+					buffer[13 + i] = (byte)hexToByte(13 + i * 2);
+				setState(word0, 13);
+			}
+			break;
+		case 'U':
+			// The reply is sent after the pages are received.
+			if (bulkSupported) {
+				beginReceivePages(byte0, byte1);
+				return;
+			}
+			break;
+		case 'V':
+			writeCapabilities();
+			break;
+		case 'W':
+			// Decode the page in place, each byte replaces the digits at or after it.
+			for (int i = 0; i < PAGE_SIZE; i++)
+				buffer[11 + i] = (byte)hexToByte(11 + i * 2);
+			writePage(byte0, 11);
+			break;
+		}
+		toHost.write('\n');
+		toHost.commit(responseDelay);
+	}
+
+	private void executeFrame () {
+		commandCount++;
+
+		int sequence = ((buffer[1] & 0xFF) << 8) | (buffer[2] & 0xFF);
+		int command = buffer[3];
+		int word0 = ((buffer[4] & 0xFF) << 8) | (buffer[5] & 0xFF);
+		int byte0 = buffer[4] & 0xFF;
+		int byte1 = buffer[5] & 0xFF;
+		replySize = 0;
+		replySequence = sequence;
+		switch (command) {
+		case 'A':
+			performAction(word0);
+			break;
+		case 'B':
+			if (bulkSupported) readPages(byte0, byte1);
+			break;
+		case 'C':
+			calibrated = byte0 > 0;
+			break;
+		case 'D':
+			logging = byte0 > 0;
+			break;
+		case 'G':
+			wireless = byte0 > 0;
+			break;
+		case 'R':
+			readPage(byte0);
+			break;
+		case 'T':
+			if (stateSupported) setState(word0, 6);
+			break;
+		case 'U':
+			if (bulkSupported) {
+				beginReceivePages(byte0, byte1);
+				return;
+			}
+			break;
+		case 'V':
+			writeCapabilities();
+			break;
+		case 'W':
+			writePage(byte0, 5);
+			break;
+		}
+		sendFrame(sequence, 'K', reply, replySize);
+		// Switching protocols takes effect after the reply so it is sent as a frame.
+		if (command == 'M') binary = byte0 > 0;
+		toHost.commit(responseDelay);
+	}
+
+	private void performAction (int action) {
+		int device = (action >> 12) & 0xF;
+		int target = (action >> 8) & 0xF;
+		int value = action & 0xFF;
+		if (device != ActionDevice.xbox.ordinal()) return;
+		if (target == KEY_PRESS || target == KEY_RELEASE) {
+			log('V', value);
+			if (value < BUTTON_COUNT) setButton(value, target == KEY_PRESS);
+		} else if (target < AXIS_COUNT) //
+			setWiper(target, value);
+	}
+
+	private void setState (int pressed, int wipersIndex) {
+		logWord('S', pressed);
+		for (int i = 0; i < BUTTON_COUNT; i++)
+			setButton(i, ((pressed >> i) & 1) != 0);
+		for (int i = 0; i < AXIS_COUNT; i++)
+			setWiper(i, buffer[wipersIndex + i] & 0xFF);
+	}
+
+	private void setButton (int index, boolean pressed) {
+		log('B', index);
+		controller.set(index, pressed ? 1 : 0);
+	}
+
+	private void setWiper (int target, int rawValue) {
+		boolean trigger = target == Axis.leftTrigger.ordinal() || target == Axis.rightTrigger.ordinal();
+		// The firmware inverts the triggers for wireless controllers.
+		if (wireless && trigger) rawValue = ~rawValue & 0xFF;
+		int wiper = rawValue;
+		if (calibrated && (eeprom[INDEX_CALIBRATION] & (1 << target)) != 0)
+			wiper = eeprom[(target * 8 + 1) * PAGE_SIZE + rawValue] & 0xFF;
+		log('C', target);
+		log('V', wiper);
+		// A wireless controller's triggers are inverted in hardware.
+		if (wireless && trigger) wiper = ~wiper & 0xFF;
+		controller.set(BUTTON_COUNT + target, controller.curves[target][wiper]);
+	}
+
+	private void readPage (int page) {
+		if (!binary) toHost.write(' ');
+		int crc8 = 0xFF;
+		for (int i = 0, address = page * PAGE_SIZE; i < PAGE_SIZE; i++, address++) {
+			int b = eeprom[address & (EEPROM_SIZE - 1)] & 0xFF;
+			crc8 = PG3BConfig.updateCRC(crc8, b);
+			writeByte(b);
+		}
+		writeByte(crc8);
+	}
+
+	private void readPages (int page, int pageCount) {
+		pageCount = Math.min(pageCount, BULK_PAGES);
+		if (!binary) toHost.write(' ');
+		int crc8 = 0xFF;
+		for (int i = 0, address = page * PAGE_SIZE; i < pageCount * PAGE_SIZE; i++, address++) {
+			int b = eeprom[address & (EEPROM_SIZE - 1)] & 0xFF;
+			crc8 = PG3BConfig.updateCRC(crc8, b);
+			writeByte(b);
+		}
+		writeByte(crc8);
+	}
+
+	/**
+	 * The raw bytes for the pages follow the command. Like the firmware, each byte is written as it is received.
+	 */
+	private void beginReceivePages (int page, int pageCount) {
+		bulkPage = page;
+		bulkCount = pageCount;
+		bulkAddress = page * PAGE_SIZE;
+		bulkRemaining = pageCount * PAGE_SIZE;
+		if (bulkRemaining == 0) endReceivePages();
+	}
+
+	private void receivePage (int b) {
+		eeprom[bulkAddress++ & (EEPROM_SIZE - 1)] = (byte)b;
+		if (--bulkRemaining == 0) endReceivePages();
+	}
+
+	/**
+	 * Replies with the CRC of the memory that was written.
+	 */
+	private void endReceivePages () {
+		bulkRemaining = -1;
+		int crc8 = 0xFF;
+		for (int i = 0, address = bulkPage * PAGE_SIZE; i < bulkCount * PAGE_SIZE; i++, address++)
+			crc8 = PG3BConfig.updateCRC(crc8, eeprom[address & (EEPROM_SIZE - 1)]);
+		if (binary) {
+			replySize = 0;
+			writeByte(crc8);
+			sendFrame(replySequence, 'K', reply, replySize);
+		} else {
+			toHost.write(' ');
+			writeByte(crc8);
+			toHost.write('\n');
+		}
+		toHost.commit(responseDelay);
+	}
+
+	private void writePage (int page, int dataIndex) {
+		for (int i = 0, address = page * PAGE_SIZE; i < PAGE_SIZE; i++, address++)
+			eeprom[address & (EEPROM_SIZE - 1)] = buffer[dataIndex + i];
+	}
+
+	private void writeCapabilities () {
+		int capabilities = 0;
+		if (stateSupported) capabilities |= CAPABILITY_STATE;
+		if (binarySupported) capabilities |= CAPABILITY_BINARY;
+		if (bulkSupported) capabilities |= CAPABILITY_BULK;
+		// Firmware without any capabilities doesn't have the command and acknowledges it without a payload.
+		if (capabilities == 0) return;
+		if (!binary) toHost.write(' ');
+		writeByte(capabilities);
+	}
+
+	private void writeByte (int b) {
+		if (binary) {
+			// A reply too large for the buffer is sent as data frames followed by the reply frame.
+			if (replySize == reply.length) {
+				sendFrame(replySequence, 'D', reply, replySize);
+				replySize = 0;
+			}
+			reply[replySize++] = (byte)b;
+		} else {
+			toHost.write(hexDigit(b >> 4));
+			toHost.write(hexDigit(b));
+		}
+	}
+
+	private void log (int prefix, int value) {
+		if (!logging) return;
+		if (binary) {
+			byte[] payload = {(byte)value};
+			sendFrame(FRAME_LOG, prefix, payload, 1);
+			return;
+		}
+		toHost.write(prefix);
+		toHost.write(' ');
+		toHost.write(hexDigit(value >> 4));
+		toHost.write(hexDigit(value));
+		toHost.write('\n');
+	}
+
+	private void logWord (int prefix, int value) {
+		if (!logging) return;
+		if (binary) {
+			byte[] payload = {(byte)(value >> 8), (byte)value};
+			sendFrame(FRAME_LOG, prefix, payload, 2);
+			return;
+		}
+		toHost.write(prefix);
+		toHost.write(' ');
+		toHost.write(hexDigit(value >> 12));
+		toHost.write(hexDigit(value >> 8));
+		toHost.write(hexDigit(value >> 4));
+		toHost.write(hexDigit(value));
+		toHost.write('\n');
+	}
+
+	private void sendFrame (int sequence, int command, byte[] payload, int size) {
+		int crc8 = 0xFF;
+		crc8 = PG3BConfig.updateCRC(crc8, size + FRAME_HEADER_SIZE);
+		crc8 = PG3BConfig.updateCRC(crc8, sequence >> 8);
+		crc8 = PG3BConfig.updateCRC(crc8, sequence);
+		crc8 = PG3BConfig.updateCRC(crc8, command);
+		for (int i = 0; i < size; i++)
+			crc8 = PG3BConfig.updateCRC(crc8, payload[i]);
+		toHost.write(FRAME_SYNC);
+		toHost.write(size + FRAME_HEADER_SIZE);
+		toHost.write(sequence >> 8);
+		toHost.write(sequence);
+		toHost.write(command);
+		toHost.write(payload, 0, size);
+		toHost.write(crc8);
+	}
+
+	/**
+	 * Converts two hex digits in the buffer the same way the firmware does, without error checking.
+	 */
+	private int hexToByte (int index) {
+		return (nibble(buffer[index]) << 4) + nibble(buffer[index + 1]) & 0xFF;
+	}
+
+	static private int nibble (int digit) {
+		if (digit > '9') return digit - 'A' + 10;
+		return digit - '0';
+	}
+
+	static private int hexDigit (int value) {
+		value &= 0xF;
+		return value < 10 ? '0' + value : 'A' + value - 10;
+	}
+
+	/**
+	 * Holds the bytes sent to the host. Each response becomes readable once the response delay has elapsed.
+	 */
+	static private class Pipe extends InputStream {
+		private final byte[] bytes = new byte[65536];
+		private int head, size, readable;
+		// The end of each response not yet readable and the time it becomes readable.
+		private final int[] pendingSizes = new int[1024];
+		private final long[] pendingTimes = new long[1024];
+		private int pendingHead, pendingCount, uncommitted;
+		volatile long timeout = TimeUnit.MILLISECONDS.toNanos(300);
+
+		synchronized void write (int b) {
+			// Like a serial port, bytes are lost if the host stops reading.
+			if (size == bytes.length) return;
+			bytes[(head + size) % bytes.length] = (byte)b;
+			size++;
+			uncommitted++;
+		}
+
+		synchronized void write (byte[] data, int offset, int length) {
+			for (int i = offset, n = offset + length; i < n; i++)
+				write(data[i]);
+		}
+
+		/**
+		 * Makes the bytes written since the last commit readable after the delay.
+		 */
+		synchronized void commit (long delay) {
+			if (delay <= 0 && pendingCount == 0)
+				readable += uncommitted;
+			else {
+				if (pendingCount == pendingSizes.length) {
+					readable += pendingSizes[pendingHead];
+					pendingHead = (pendingHead + 1) % pendingSizes.length;
+					pendingCount--;
+				}
+				int index = (pendingHead + pendingCount) % pendingSizes.length;
+				pendingSizes[index] = uncommitted;
+				pendingTimes[index] = System.nanoTime() + delay;
+				pendingCount++;
+			}
+			uncommitted = 0;
+			notifyAll();
+		}
+
+		synchronized void clear () {
+			head = 0;
+			size = 0;
+			readable = 0;
+			pendingCount = 0;
+			uncommitted = 0;
+		}
+
+		/**
+		 * Returns -1 if no byte was available before the read timeout elapsed.
+		 */
+		public int read () throws IOException {
+			byte[] b = new byte[1];
+			if (read(b, 0, 1) == 0) return -1;
+			return b[0] & 0xFF;
+		}
+
+		/**
+		 * Returns 0 if no bytes were available before the read timeout elapsed.
+		 */
+		public synchronized int read (byte[] data, int offset, int length) throws IOException {
+			long endTime = System.nanoTime() + timeout;
+			while (true) {
+				long now = System.nanoTime();
+				while (pendingCount > 0 && pendingTimes[pendingHead] - now <= 0) {
+					readable += pendingSizes[pendingHead];
+					pendingHead = (pendingHead + 1) % pendingSizes.length;
+					pendingCount--;
+				}
+				if (readable > 0) {
+					int count = Math.min(length, readable);
+					for (int i = 0; i < count; i++)
+						data[offset + i] = bytes[(head + i) % bytes.length];
+					head = (head + count) % bytes.length;
+					size -= count;
+					readable -= count;
+					return count;
+				}
+				long wait = endTime - now;
+				if (pendingCount > 0) wait = Math.min(wait, pendingTimes[pendingHead] - now);
+				if (wait <= 0) {
+					if (endTime - now <= 0) return 0;
+					continue;
+				}
+				try {
+					TimeUnit.NANOSECONDS.timedWait(this, wait);
+				} catch (InterruptedException ex) {
+					throw new IOException("Interrupted while reading.");
+				}
+			}
+		}
+
+		public synchronized int available () {
+			return readable;
+		}
+	}
+
+	/**
+	 * The Xbox 360 controller that the emulated PG3B is wired to.
+	 */
+	static private class EmulatedController extends XboxController {
+		final float[][] curves = new float[AXIS_COUNT][];
+		volatile long delay;
+		// Buttons, then axes.
+		private final float[] values = new float[BUTTON_COUNT + AXIS_COUNT];
+		// Changes waiting for the delay to elapse.
+		private final long[] changeTimes = new long[1024];
+		private final int[] changeTargets = new int[1024];
+		private final float[] changeValues = new float[1024];
+		private int changeHead, changeCount;
+
+		synchronized void set (int target, float value) {
+			if (delay <= 0 && changeCount == 0) {
+				apply(target, value);
+				return;
+			}
+			if (changeCount == changeTimes.length) {
+				apply(changeTargets[changeHead], changeValues[changeHead]);
+				changeHead = (changeHead + 1) % changeTimes.length;
+				changeCount--;
+			}
+			int index = (changeHead + changeCount) % changeTimes.length;
+			changeTimes[index] = System.nanoTime() + delay;
+			changeTargets[index] = target;
+			changeValues[index] = value;
+			changeCount++;
+		}
+
+		private void apply (int target, float value) {
+			if (values[target] == value) return;
+			values[target] = value;
+			if (target < BUTTON_COUNT)
+				notifyListeners(buttons[target], value != 0);
+			else
+				notifyListeners(axes[target - BUTTON_COUNT], value);
+		}
+
+		public synchronized boolean poll () {
+			long now = System.nanoTime();
+			while (changeCount > 0 && changeTimes[changeHead] - now <= 0) {
+				apply(changeTargets[changeHead], changeValues[changeHead]);
+				changeHead = (changeHead + 1) % changeTimes.length;
+				changeCount--;
+			}
+			return true;
+		}
+
+		public synchronized boolean get (Button button) {
+			poll();
+			return values[button.ordinal()] != 0;
+		}
+
+		public synchronized float get (Axis axis) {
+			poll();
+			return values[BUTTON_COUNT + axis.ordinal()];
+		}
+
+		public int getPort () {
+			return 0;
+		}
+
+		public Input getLastInput () {
+			return null;
+		}
+
+		public String getName () {
+			return "Emulated Xbox Controller";
+		}
+	}
+}
@@ -0,0 +1,88 @@
+
+package com.esotericsoftware.controller.pg3b;
+
+import java.io.IOException;
+
+/**
+ * A command that has been sent to the PG3B. Completes when the PG3B acknowledges the command's sequence number. Commands that no
+ * one waits on are reused once acknowledged.
+ */
+class PendingCommand {
+	Command command;
+	short sequenceNumber;
+	/** The System.nanoTime() when the command was written. */
+	long sendTime;
+	/** The number of milliseconds the PG3B has to acknowledge the command. */
+	int timeout;
+	final byte[] response;
+	private boolean done;
+	private int responseLength;
+	private IOException error;
+
+	PendingCommand () {
+		response = null;
+	}
+
+	/**
+	 * @param response Receives the response payload. May be null.
+	 */
+	PendingCommand (Command command, short sequenceNumber, byte[] response) {
+		this.command = command;
+		this.sequenceNumber = sequenceNumber;
+		this.response = response;
+	}
+
+	synchronized void reset (Command command, short sequenceNumber) {
+		this.command = command;
+		this.sequenceNumber = sequenceNumber;
+		done = false;
+		responseLength = 0;
+		error = null;
+	}
+
+	/**
+	 * @param responseLength The number of payload bytes stored in the response buffer.
+	 */
+	synchronized void complete (int responseLength) {
+		if (done) return;
+		this.responseLength = responseLength;
+		done = true;
+		notifyAll();
+	}
+
+	synchronized void fail (IOException error) {
+		if (done) return;
+		this.error = error;
+		done = true;
+		notifyAll();
+	}
+
+	/**
+	 * Waits for the PG3B to acknowledge the command.
+	 * @param timeout The number of milliseconds to wait.
+	 * @return The number of payload bytes stored in the response buffer.
+	 * @throws IOException When the command failed or the PG3B did not respond in time.
+	 */
+	synchronized int await (int timeout) throws IOException {
+		long endTime = System.currentTimeMillis() + timeout;
+		while (!done) {
+			long remaining = endTime - System.currentTimeMillis();
+			if (remaining <= 0) throw new IOException("Timed out waiting for PG3B to acknowledge command: " + this);
+			try {
+				wait(remaining);
+			} catch (InterruptedException ex) {
+				throw new IOException("Interrupted waiting for PG3B to acknowledge command: " + this);
+			}
+		}
+		if (error != null) throw error;
+		return responseLength;
+	}
+
+	public synchronized boolean isDone () {
+		return done;
+	}
+
+	public String toString () {
+		return command + " (" + (sequenceNumber & 0xFFFF) + ")";
+	}
+}
@@ -0,0 +1,91 @@
+
+package com.esotericsoftware.controller.pg3b;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A fixed size circular buffer of bytes read from a stream. Bytes are examined in place relative to the oldest byte and are
+ * discarded once they have been parsed, so no objects are allocated while reading.
+ */
+class RingBuffer {
+	private final byte[] bytes;
+	private final int mask;
+	private int head, size;
+
+	/**
+	 * @param capacity Must be a power of two.
+	 */
+	RingBuffer (int capacity) {
+		if (capacity <= 0 || (capacity & (capacity - 1)) != 0)
+			throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+		bytes = new byte[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Reads as many bytes as are available from the stream, up to the free space remaining. Blocks for at most the stream's
+	 * receive timeout.
+	 * @return false if no bytes were read.
+	 * @throws EOFException If the end of the stream was reached.
+	 */
+	boolean fill (InputStream input) throws IOException {
+		if (size == bytes.length) return false;
+		int tail = (head + size) & mask;
+		int count = Math.min(bytes.length - size, bytes.length - tail);
+		count = input.read(bytes, tail, count);
+		if (count == -1) throw new EOFException("Connection was closed.");
+		if (count == 0) return false;
+		size += count;
+		return true;
+	}
+
+	/**
+	 * Returns the byte at the specified index, where 0 is the oldest byte in the buffer.
+	 */
+	int get (int index) {
+		return bytes[(head + index) & mask] & 0xFF;
+	}
+
+	/**
+	 * Returns the index of the first occurrence of the value at or after the start index, or -1.
+	 */
+	int indexOf (int value, int start) {
+		for (int i = start; i < size; i++)
+			if (get(i) == value) return i;
+		return -1;
+	}
+
+	/**
+	 * Discards the specified number of the oldest bytes.
+	 */
+	void skip (int count) {
+		if (count > size) throw new IllegalArgumentException("count cannot be > size: " + count + " > " + size);
+		head = (head + count) & mask;
+		size -= count;
+	}
+
+	void clear () {
+		head = 0;
+		size = 0;
+	}
+
+	int size () {
+		return size;
+	}
+
+	boolean isFull () {
+		return size == bytes.length;
+	}
+
+	/**
+	 * Returns the bytes from start to end as a String, for logging.
+	 */
+	String toString (int start, int end) {
+		StringBuilder buffer = new StringBuilder(end - start);
+		for (int i = start; i < end; i++)
+			buffer.append((char)get(i));
+		return buffer.toString();
+	}
+}
@@ -10,15 +10,20 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.esotericsoftware.controller.device.Axis;
 import com.esotericsoftware.controller.device.Deadzone;
 import com.esotericsoftware.controller.device.Device;
+import com.esotericsoftware.controller.device.ResponseCurve;
 import com.esotericsoftware.controller.device.Stick;
 import com.esotericsoftware.controller.device.Target;
+import com.esotericsoftware.controller.input.Keyboard;
 import com.esotericsoftware.controller.input.Mouse;
 import com.esotericsoftware.controller.ui.swing.UI;
+import com.esotericsoftware.controller.util.TickScheduler;
 
 /**
  * Maintains a list of triggers and checks them when activated.
@@ -29,8 +34,11 @@ public class Config extends Editable {
 
 	private List<Trigger> triggers = new ArrayList();
 	private Deadzone leftDeadzone, rightDeadzone;
+	private Map<String, ResponseCurve> responseCurves = new HashMap();
 	private MouseTranslation mouseTranslation;
 	private Map<String, String> targetNames = new HashMap();
+	// Incremented when the triggers or their inputs may have changed.
+	private transient volatile int modCount;
 
 	public Config () {
 	}
@@ -45,6 +53,22 @@ public class Config extends Editable {
 
 	public void setTriggers (List<Trigger> triggers) {
 		this.triggers = triggers;
+		modCount++;
+	}
+
+	/**
+	 * Returns a count that is incremented when the triggers are replaced or the config is saved. Editors save the config after
+	 * adding, removing or changing triggers.
+	 */
+	int getModCount () {
+		return modCount;
+	}
+
+	/**
+	 * Returns a new index of the triggers, which is used to check only the triggers whose input changed.
+	 */
+	public TriggerIndex newTriggerIndex () {
+		return new TriggerIndex(this);
 	}
 
 	public Deadzone getLeftDeadzone () {
@@ -63,6 +87,17 @@ public class Config extends Editable {
 		this.rightDeadzone = rightDeadzone;
 	}
 
+	public Map<String, ResponseCurve> getResponseCurves () {
+		return responseCurves;
+	}
+
+	/**
+	 * @param responseCurves Map from axis name to the curve applied to that axis.
+	 */
+	public void setResponseCurves (Map<String, ResponseCurve> responseCurves) {
+		this.responseCurves = responseCurves;
+	}
+
 	public MouseTranslation getMouseTranslation () {
 		return mouseTranslation;
 	}
@@ -108,6 +143,8 @@ public class Config extends Editable {
 	}
 
 	public void save (Writer writer) throws IOException {
+		// The triggers may have been edited while the config is active.
+		modCount++;
 		super.save(writer);
 		if (DEBUG) debug("Config saved: " + this);
 	}
@@ -143,14 +180,28 @@ public class Config extends Editable {
 		return thread.config;
 	}
 
+	/**
+	 * Returns the scheduler pacing the active config's trigger checks, or null if no config is active.
+	 */
+	static public TickScheduler getActiveScheduler () {
+		PollerThread thread = Config.thread;
+		if (thread == null || !thread.running) return null;
+		return thread.scheduler;
+	}
+
 	static private class PollerThread extends Thread {
 		final Config config;
+		final TickScheduler scheduler;
 		volatile boolean running = true;
 		private boolean hasError;
 
 		public PollerThread (Config config) {
 			super(config.getName());
 			this.config = config;
+			int pollRate = Settings.get().pollRate;
+			if (pollRate <= 0) pollRate = 1000;
+			scheduler = new TickScheduler(pollRate);
+			scheduler.setIdleRate(Math.max(0, Settings.get().idlePollRate), Math.max(0, Settings.get().idleDelayMillis));
 		}
 
 		public void run () {
@@ -166,6 +217,9 @@ public class Config extends Editable {
 				if (device != null) {
 					device.setDeadzone(Stick.left, config.getLeftDeadzone());
 					device.setDeadzone(Stick.right, config.getRightDeadzone());
+					Map<String, ResponseCurve> responseCurves = config.getResponseCurves();
+					for (Axis axis : Axis.values())
+						device.setResponseCurve(axis, responseCurves == null ? null : responseCurves.get(axis.name()));
 					device.setTargetNames(config.getTargetNames());
 				}
 				List<Trigger> triggers = config.getTriggers();
@@ -184,32 +238,49 @@ public class Config extends Editable {
 				// Triggers are applied in activation order so those that manipulate the same targets work correctly.
 				ArrayList<Trigger> activeTriggers = new ArrayList();
 				ArrayList<Trigger> deactivateTriggers = new ArrayList();
+				// Only triggers whose input changed are checked for activation.
+				TriggerIndex index = config.newTriggerIndex();
+				IdentityHashMap<Trigger, Boolean> active = new IdentityHashMap();
+				Keyboard.instance.addListener(keyboardListener);
+				Mouse.instance.addListener(mouseListener);
 				while (running) {
-					Thread.sleep(1);
+					scheduler.waitForTick();
 
 					for (Poller poller : pollers)
 						poller.poll();
 
-					for (int i = 0, n = triggers.size(); i < n; i++) {
-						Trigger trigger = triggers.get(i);
-						boolean wasActive = activeTriggers.contains(trigger);
+					int count = index.update();
+					int[] changed = index.getChanged();
+					for (int i = 0; i < count; i++) {
+						Trigger trigger = index.getTrigger(changed[i]);
+						boolean wasActive = active.containsKey(trigger);
 						if (trigger.isActive()) {
 							if (!wasActive) {
 								if (TRACE) trace("Trigger \"" + trigger + "\" is active with state: " + trigger.getPayload());
 								activeTriggers.add(trigger);
+								active.put(trigger, Boolean.TRUE);
 								// Execute "activate" function outside apply/collect.
 								execute(trigger);
 							}
 						} else {
 							if (wasActive) {
 								if (TRACE) trace("Trigger \"" + trigger + "\" is inactive with state: " + trigger.getPayload());
-								activeTriggers.remove(trigger);
+								// Removed by identity, since equal triggers may be bound more than once.
+								for (int ii = activeTriggers.size() - 1; ii >= 0; ii--) {
+									if (activeTriggers.get(ii) != trigger) continue;
+									activeTriggers.remove(ii);
+									break;
+								}
+								active.remove(trigger);
 								// Execute "deactivate" function inside apply/collect.
 								deactivateTriggers.add(trigger);
 							}
 						}
 					}
 
+					// Stay at the full rate while inputs are changing or any trigger is or was just active.
+					if (index.inputsChanged() || !activeTriggers.isEmpty() || !deactivateTriggers.isEmpty()) scheduler.activity();
+
 					for (int i = 0, n = deactivateTriggers.size(); i < n; i++)
 						execute(deactivateTriggers.get(i));
 					deactivateTriggers.clear();
@@ -227,6 +298,8 @@ public class Config extends Editable {
 				hasError = true;
 			} finally {
 				running = false;
+				Keyboard.instance.removeListener(keyboardListener);
+				Mouse.instance.removeListener(mouseListener);
 				if (device != null) {
 					try {
 						device.apply();
@@ -234,9 +307,12 @@ public class Config extends Editable {
 					}
 					device.setDeadzone(Stick.left, null);
 					device.setDeadzone(Stick.right, null);
+					for (Axis axis : Axis.values())
+						device.setResponseCurve(axis, null);
 				}
 				config.setMouseTranslation(originalMouseTranslation);
 				if (INFO) info("Deactivated config: " + config.getName());
+				if (DEBUG) debug("Config poll ticks: " + scheduler);
 				EventQueue.invokeLater(new Runnable() {
 					public void run () {
 						UI.instance.updateActiveConfig();
@@ -246,6 +322,35 @@ public class Config extends Editable {
 			}
 		}
 
+		// Input events wake the scheduler from idle without waiting for the next idle tick.
+		private final Keyboard.Listener keyboardListener = new Keyboard.Listener() {
+			public void keyDown (int keyCode, char c) {
+				scheduler.activity();
+			}
+
+			public void keyUp (int keyCode, char c) {
+				scheduler.activity();
+			}
+		};
+
+		private final Mouse.Listener mouseListener = new Mouse.Listener() {
+			public void mouseDown (int button) {
+				scheduler.activity();
+			}
+
+			public void mouseUp (int button) {
+				scheduler.activity();
+			}
+
+			public void mouseMoved (int deltaX, int deltaY) {
+				scheduler.activity();
+			}
+
+			public void mouseWheel (int delta) {
+				scheduler.activity();
+			}
+		};
+
 		private void execute (Trigger trigger) {
 			try {
 				trigger.execute(config);
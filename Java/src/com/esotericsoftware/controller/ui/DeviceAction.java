@@ -17,6 +17,7 @@ import com.esotericsoftware.controller.ui.swing.UI;
 public class DeviceAction implements Action {
 	private Target target;
 	private Direction direction = Direction.both;
+	private transient int handle = -1;
 
 	public DeviceAction () {
 	}
@@ -33,6 +34,7 @@ public class DeviceAction implements Action {
 		if (target != null && !(target instanceof Button) && !(target instanceof Axis))
 			throw new IllegalArgumentException("target must be a button or axis.");
 		this.target = target;
+		handle = target == null ? -1 : Device.getHandle(target);
 	}
 
 	public Direction getDirection () {
@@ -51,6 +53,7 @@ public class DeviceAction implements Action {
 	}
 
 	public void reset (Config config, Trigger trigger) {
+		handle = target == null ? -1 : Device.getHandle(target);
 	}
 
 	public Object execute (Config config, Trigger trigger, boolean isActive, Object object) {
@@ -87,7 +90,10 @@ public class DeviceAction implements Action {
 				}
 			}
 		}
-		device.set(target, payload);
+		if (handle != -1)
+			device.set(handle, payload);
+		else
+			device.set(target, payload);
 		return payload;
 	}
 
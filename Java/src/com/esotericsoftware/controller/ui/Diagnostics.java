@@ -14,6 +14,8 @@ import com.esotericsoftware.controller.device.Button;
 import com.esotericsoftware.controller.device.Device;
 import com.esotericsoftware.controller.device.Target;
 import com.esotericsoftware.controller.input.XboxController;
+import com.esotericsoftware.controller.pg3b.Command;
+import com.esotericsoftware.controller.pg3b.LinkStats;
 import com.esotericsoftware.controller.pg3b.PG3B;
 import com.esotericsoftware.controller.util.Loader;
 import com.esotericsoftware.minlog.Log;
@@ -175,4 +177,54 @@ public class Diagnostics {
 			return false;
 		}
 	}
+
+	/**
+	 * Returns a single line describing the current load on the connection to the PG3B.
+	 */
+	static public String getLinkSummary (PG3B pg3b) {
+		if (pg3b == null) throw new IllegalArgumentException("pg3b cannot be null.");
+
+		if (pg3b.isReconnecting()) return "reconnecting...";
+		LinkStats stats = pg3b.getStats();
+		StringBuilder buffer = new StringBuilder(64);
+		buffer.append(Math.round(stats.getCommandsPerSecond()));
+		buffer.append(" cmd/s, ");
+		buffer.append(Math.round((stats.getBytesSentPerSecond() + stats.getBytesReceivedPerSecond()) / 1024));
+		buffer.append(" KB/s, p99 ");
+		buffer.append(stats.getPercentile(null, 0.99f));
+		buffer.append("us");
+		long timeouts = stats.getTimeouts();
+		if (timeouts > 0) {
+			buffer.append(", ");
+			buffer.append(timeouts);
+			buffer.append(timeouts == 1 ? " timeout" : " timeouts");
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Returns a multiline report of the latency for each command sent to the PG3B and the connection's counters.
+	 */
+	static public String getLinkReport (PG3B pg3b) {
+		if (pg3b == null) throw new IllegalArgumentException("pg3b cannot be null.");
+
+		LinkStats stats = pg3b.getStats();
+		StringBuilder buffer = new StringBuilder(512);
+		buffer.append(String.format("%-24s %8s %8s %8s %8s\n", "Command", "count", "avg us", "p50 us", "p99 us"));
+		for (Command command : Command.values()) {
+			long count = stats.getCount(command);
+			if (count == 0) continue;
+			buffer.append(String.format("%-24s %8d %8.1f %8d %8d\n", command, count, stats.getAverage(command), stats.getPercentile(
+				command, 0.5f), stats.getPercentile(command, 0.99f)));
+		}
+		buffer.append(String.format("Commands: %d (%.0f/s)\n", stats.getCommandsSent(), stats.getCommandsPerSecond()));
+		buffer.append(String.format("Bytes sent: %d (%.0f/s)\n", stats.getBytesSent(), stats.getBytesSentPerSecond()));
+		buffer.append(String.format("Bytes received: %d (%.0f/s)\n", stats.getBytesReceived(), stats.getBytesReceivedPerSecond()));
+		buffer.append("Timeouts: " + stats.getTimeouts() + "\n");
+		buffer.append("Ignored: " + stats.getIgnored() + "\n");
+		buffer.append("Debug messages: " + stats.getDebugMessages() + "\n");
+		buffer.append("CRC errors: " + stats.getCrcErrors() + "\n");
+		buffer.append("Reconnects: " + stats.getReconnects() + "\n");
+		return buffer.toString();
+	}
 }
@@ -11,6 +11,7 @@ import java.util.LinkedHashMap;
 
 import com.esotericsoftware.controller.device.Deadzone;
 import com.esotericsoftware.controller.device.Device;
+import com.esotericsoftware.controller.device.ResponseCurve;
 import com.esotericsoftware.controller.input.JInputJoystick;
 import com.esotericsoftware.controller.input.JInputXboxController;
 import com.esotericsoftware.controller.input.Keyboard;
@@ -101,6 +102,10 @@ public class Editable implements Cloneable {
 		yamlConfig.setClassTag("xboxcontroller-jinput", JInputXboxController.ControllerInput.class);
 		yamlConfig.setClassTag("round", Deadzone.Round.class);
 		yamlConfig.setClassTag("square", Deadzone.Square.class);
+		yamlConfig.setClassTag("piecewise-linear", ResponseCurve.PiecewiseLinear.class);
+		yamlConfig.setClassTag("exponential", ResponseCurve.Exponential.class);
+		yamlConfig.setClassTag("s-curve", ResponseCurve.SCurve.class);
+		yamlConfig.setClassTag("anti-deadzone", ResponseCurve.AntiDeadzone.class);
 		yamlConfig.setClassTag("mouse-settings", MouseAction.class);
 		yamlConfig.setClassTag("xim1-translation", XIM1MouseTranslation.class);
 		yamlConfig.setClassTag("xim2-translation", XIM2MouseTranslation.class);
@@ -109,6 +114,7 @@ public class Editable implements Cloneable {
 
 		yamlConfig.setPropertyElementType(Config.class, "triggers", InputTrigger.class);
 		yamlConfig.setPropertyDefaultType(Config.class, "targetNames", LinkedHashMap.class);
+		yamlConfig.setPropertyDefaultType(Config.class, "responseCurves", LinkedHashMap.class);
 		yamlConfig.setPropertyDefaultType(Trigger.class, "action", DeviceAction.class);
 		yamlConfig.setPropertyDefaultType(InputTrigger.class, "input", Keyboard.KeyboardInput.class);
 	}
@@ -13,6 +13,7 @@ public class InputTrigger extends Trigger {
 	private Input input;
 	private boolean shift, ctrl, alt, noModifiers, invert;
 	private Deadzone deadzone;
+	private transient final float[] deflection = new float[2];
 
 	public InputTrigger () {
 	}
@@ -132,8 +133,10 @@ public class InputTrigger extends Trigger {
 					x = input.getOtherState();
 					y = payload;
 				}
-				float[] values = deadzone.getInput(x, y);
-				payload = input.isAxisX() ? values[0] : values[1];
+				synchronized (deflection) {
+					deadzone.getInput(x, y, deflection);
+					payload = input.isAxisX() ? deflection[0] : deflection[1];
+				}
 			}
 		}
 		return payload;
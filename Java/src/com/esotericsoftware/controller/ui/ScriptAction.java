@@ -10,6 +10,10 @@ import pnuts.lang.Package;
 import pnuts.lang.Pnuts;
 import pnuts.lang.PnutsFunction;
 
+import com.esotericsoftware.controller.device.Axis;
+import com.esotericsoftware.controller.device.Button;
+import com.esotericsoftware.controller.device.Device;
+import com.esotericsoftware.controller.device.Target;
 import com.esotericsoftware.controller.ui.swing.UI;
 
 /**
@@ -138,6 +142,7 @@ public class ScriptAction implements Action {
 		pkg.set(CONSTANT_TRIGGER, trigger);
 		pkg.set(CONSTANT_ACTION, action);
 		pkg.set(CONSTANT_PAYLOAD, 0);
+		bindTargets(pkg);
 
 		Context context = new Context(pkg);
 		context.setWriter(new PrintWriter(System.out, true));
@@ -146,6 +151,19 @@ public class ScriptAction implements Action {
 		return context;
 	}
 
+	/**
+	 * Defines a constant for the handle of each target, named by the target's alias or its name in upper case. Scripts can then
+	 * use, eg, "device.set(LT, payload)" to avoid looking up the target by name each time.
+	 * @see Device#getHandle(Target)
+	 */
+	static private void bindTargets (Package pkg) {
+		for (Target target : Device.getTargets()) {
+			String alias = target instanceof Button ? ((Button)target).getAlias() : ((Axis)target).getAlias();
+			if (alias == null) alias = target.name().toUpperCase();
+			pkg.set(alias.intern(), Device.getHandle(target));
+		}
+	}
+
 	/**
 	 * Executes the specified function, if it exists.
 	 */
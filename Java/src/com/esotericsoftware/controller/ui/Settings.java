@@ -30,6 +30,14 @@ public class Settings {
 	public float dividerLocation = 0.66f;
 	public boolean xim1Connected, xim2Connected;
 	public boolean activationDisablesInput = true;
+	/** The number of times per second the active config checks its triggers. */
+	public int pollRate = 1000;
+	/**
+	 * The number of times per second the active config checks its triggers after there has been no input for the idle delay, or 0
+	 * to always check at the poll rate. Input that is only seen when polled, such as joysticks, may be noticed one idle period late.
+	 */
+	public int idlePollRate = 0;
+	public int idleDelayMillis = 5000;
 
 	static private Settings instance;
 	static private final String fileName = "settings.txt";
@@ -0,0 +1,172 @@
+
+package com.esotericsoftware.controller.ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.esotericsoftware.controller.input.Input;
+import com.esotericsoftware.controller.input.Keyboard;
+
+/**
+ * Groups a config's triggers by their input so that only the triggers whose input changed since the last check need to be
+ * checked. Each distinct input is read once per check, no matter how many triggers use it. A change to the keyboard modifiers
+ * causes all input triggers to be checked. Triggers that are not input triggers are always checked. The index is rebuilt when the
+ * config's modification count changes. The triggers are copied when the index is built, so the indices always refer to the
+ * triggers that were grouped.
+ */
+public class TriggerIndex {
+	private final Config config;
+	private final List<Trigger> triggers;
+	private int modCount;
+	private Trigger[] snapshot = new Trigger[0];
+	private int[] changed = new int[0];
+	private InputGroup[] groups;
+	private int[] alwaysChanged;
+	private int[] inputTriggers;
+	private int modifiers;
+	private boolean first, inputsChanged;
+
+	TriggerIndex (Config config) {
+		if (config == null) throw new IllegalArgumentException("config cannot be null.");
+		this.config = config;
+		triggers = config.getTriggers();
+		build();
+	}
+
+	private void build () {
+		// Read first, so an edit made while building causes another build.
+		modCount = config.getModCount();
+		Trigger[] snapshot = triggers.toArray(new Trigger[triggers.size()]);
+		this.snapshot = snapshot;
+		int count = snapshot.length;
+		if (changed.length < count) changed = new int[count];
+		Map<Input, List<Integer>> inputToTriggers = new LinkedHashMap();
+		List<Integer> always = new ArrayList();
+		List<Integer> input = new ArrayList();
+		for (int i = 0; i < count; i++) {
+			Trigger trigger = snapshot[i];
+			if (!(trigger instanceof InputTrigger)) {
+				always.add(i);
+				continue;
+			}
+			input.add(i);
+			Input triggerInput = ((InputTrigger)trigger).getInput();
+			// A trigger without an input is never active.
+			if (triggerInput == null) continue;
+			List<Integer> indices = inputToTriggers.get(triggerInput);
+			if (indices == null) inputToTriggers.put(triggerInput, indices = new ArrayList());
+			indices.add(i);
+		}
+		groups = new InputGroup[inputToTriggers.size()];
+		int i = 0;
+		for (Map.Entry<Input, List<Integer>> entry : inputToTriggers.entrySet())
+			groups[i++] = new InputGroup(entry.getKey(), toArray(entry.getValue()));
+		alwaysChanged = toArray(always);
+		inputTriggers = toArray(input);
+		first = true;
+	}
+
+	/**
+	 * Returns the number of triggers in the config when the index was last built.
+	 */
+	public int size () {
+		return snapshot.length;
+	}
+
+	/**
+	 * Returns a trigger by its index, as the config's triggers were when the index was last built.
+	 */
+	public Trigger getTrigger (int index) {
+		return snapshot[index];
+	}
+
+	/**
+	 * Determines the triggers that need to be checked. Should be called after the inputs are polled.
+	 * @return The number of triggers to check, whose indices are stored in {@link #getChanged()}.
+	 */
+	public int update () {
+		// The trigger list or a trigger's input may be edited while the config is active. The size is also checked, since a trigger
+		// may be removed before the config is saved.
+		if (config.getModCount() != modCount || triggers.size() != snapshot.length) build();
+
+		int[] changed = this.changed;
+		int count = 0;
+		Keyboard keyboard = Keyboard.instance;
+		int modifiers = (keyboard.isCtrlDown() ? 1 : 0) | (keyboard.isAltDown() ? 2 : 0) | (keyboard.isShiftDown() ? 4 : 0);
+		inputsChanged = false;
+		if (first || modifiers != this.modifiers) {
+			first = false;
+			inputsChanged = true;
+			this.modifiers = modifiers;
+			// Any input trigger may depend on the modifiers.
+			for (InputGroup group : groups)
+				group.changed();
+			int[] inputTriggers = this.inputTriggers;
+			System.arraycopy(inputTriggers, 0, changed, 0, inputTriggers.length);
+			count = inputTriggers.length;
+		} else {
+			for (InputGroup group : groups) {
+				if (!group.changed()) continue;
+				inputsChanged = true;
+				int[] indices = group.triggers;
+				System.arraycopy(indices, 0, changed, count, indices.length);
+				count += indices.length;
+			}
+		}
+		int[] alwaysChanged = this.alwaysChanged;
+		System.arraycopy(alwaysChanged, 0, changed, count, alwaysChanged.length);
+		count += alwaysChanged.length;
+		// Triggers are checked in config order so those activated in the same check run in a consistent order.
+		if (count > 1) Arrays.sort(changed, 0, count);
+		return count;
+	}
+
+	/**
+	 * Returns the indices of the triggers to check, in config order. The array is reused and only the number of entries returned
+	 * by the last {@link #update()} are valid.
+	 */
+	public int[] getChanged () {
+		return changed;
+	}
+
+	/**
+	 * Returns true if any input or the keyboard modifiers changed during the last {@link #update()}.
+	 */
+	public boolean inputsChanged () {
+		return inputsChanged;
+	}
+
+	static private int[] toArray (List<Integer> list) {
+		int[] array = new int[list.size()];
+		for (int i = 0, n = array.length; i < n; i++)
+			array[i] = list.get(i);
+		return array;
+	}
+
+	static private class InputGroup {
+		final Input input;
+		final int[] triggers;
+		float state, otherState;
+
+		public InputGroup (Input input, int[] triggers) {
+			this.input = input;
+			this.triggers = triggers;
+		}
+
+		/**
+		 * Reads the input and returns true if it changed since the last read.
+		 */
+		boolean changed () {
+			float state = input.getState();
+			// The other state is used by deadzones.
+			float otherState = input.isAxis() ? input.getOtherState() : 0;
+			if (state == this.state && otherState == this.otherState) return false;
+			this.state = state;
+			this.otherState = otherState;
+			return true;
+		}
+	}
+}
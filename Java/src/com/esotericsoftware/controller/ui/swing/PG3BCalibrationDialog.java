@@ -92,10 +92,15 @@ public class PG3BCalibrationDialog extends JDialog {
 			for (Axis axis : Axis.values()) {
 				boolean isCalibrated = config.isCalibrated(axis);
 				AxisCalibration calibration = calibrations.get(axis.ordinal());
-				if (isCalibrated)
-					calibration.calibrationTable = config.getCalibrationTable(axis);
-				else
+				if (!isCalibrated)
 					calibration.calibrationTable = null;
+				else if (calibration.calibrationTable == null || calibration.config != config
+					|| calibration.calibrationVersion != config.getCalibrationVersion(axis)) {
+					// The table is only copied again if it was read from or written to the PG3B since it was last copied.
+					calibration.calibrationTable = config.getCalibrationTable(axis);
+					calibration.config = config;
+					calibration.calibrationVersion = config.getCalibrationVersion(axis);
+				}
 				tableModel.addRow(new Object[] {axis, isCalibrated ? "Yes" : "No"});
 			}
 		} catch (IOException ex) {
@@ -301,6 +306,8 @@ public class PG3BCalibrationDialog extends JDialog {
 	static private class AxisCalibration {
 		public final Axis axis;
 		public byte[] calibrationTable;
+		public PG3BConfig config;
+		public int calibrationVersion;
 		public float[] rawValues;
 
 		public AxisCalibration (Axis axis) {
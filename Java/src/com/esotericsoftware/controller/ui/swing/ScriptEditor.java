@@ -110,28 +110,28 @@ public class ScriptEditor extends EditorPanel<Script> {
 		} catch (IOException ex) {
 			if (Log.WARN) warn("Error loading autocompletion.", ex);
 		}
-		provider.addCompletion(new ShorthandCompletion(provider, "S", "device.set(\"start\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "G", "device.set(\"guide\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "BK", "device.set(\"back\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "A", "device.set(\"a\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "B", "device.set(\"b\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "X", "device.set(\"x\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "Y", "device.set(\"y\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "U", "device.set(\"up\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "D", "device.set(\"down\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "L", "device.set(\"left\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "R", "device.set(\"right\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "RT", "device.set(\"rightTrigger\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "LT", "device.set(\"leftTrigger\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "RSH", "device.set(\"rightShoulder\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "LSH", "device.set(\"leftShoulder\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "RST", "device.set(\"rightStick\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "LST", "device.set(\"leftStick\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "RX", "device.set(\"rightStickX\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "RY", "device.set(\"rightStickY\", payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "S", "device.set(S, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "G", "device.set(G, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "BK", "device.set(BK, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "A", "device.set(A, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "B", "device.set(B, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "X", "device.set(X, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "Y", "device.set(Y, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "U", "device.set(U, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "D", "device.set(D, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "L", "device.set(L, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "R", "device.set(R, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "RT", "device.set(RT, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "LT", "device.set(LT, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "RSH", "device.set(RSH, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "LSH", "device.set(LSH, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "RST", "device.set(RST, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "LST", "device.set(LST, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "RX", "device.set(RX, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "RY", "device.set(RY, payload)"));
 		provider.addCompletion(new ShorthandCompletion(provider, "RXY", "device.set(\"rightStick\", 1, 1)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "LX", "device.set(\"leftStickX\", payload)"));
-		provider.addCompletion(new ShorthandCompletion(provider, "LY", "device.set(\"leftStickY\", payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "LX", "device.set(LX, payload)"));
+		provider.addCompletion(new ShorthandCompletion(provider, "LY", "device.set(LY, payload)"));
 		provider.addCompletion(new ShorthandCompletion(provider, "LXY", "device.set(\"leftStick\", 1, 1)"));
 		autoCompletion = new AutoCompletion(provider);
 		autoCompletion.setListCellRenderer(new CellRenderer());
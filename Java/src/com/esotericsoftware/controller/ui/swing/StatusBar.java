@@ -19,13 +19,15 @@ import javax.swing.JPanel;
 
 import com.esotericsoftware.controller.device.Device;
 import com.esotericsoftware.controller.input.XboxController;
+import com.esotericsoftware.controller.pg3b.PG3B;
 import com.esotericsoftware.controller.ui.Config;
+import com.esotericsoftware.controller.ui.Diagnostics;
 import com.esotericsoftware.controller.util.Util;
 
 public class StatusBar extends JPanel {
-	private TimerTask clearMessageTask;
+	private TimerTask clearMessageTask, linkTask;
 
-	private JLabel deviceLabel, controllerLabel, configLabel, messageLabel;
+	private JLabel deviceLabel, controllerLabel, configLabel, linkLabel, messageLabel;
 	private ImageIcon greenImage, redImage;
 
 	private XboxController lastController;
@@ -70,10 +72,16 @@ public class StatusBar extends JPanel {
 				new Insets(3, 12, 3, 0), 0, 0));
 			configLabel.setIcon(redImage);
 		}
+		{
+			linkLabel = new JLabel();
+			add(linkLabel, new GridBagConstraints(3, 0, 1, 1, 0.0, 0.0, GridBagConstraints.CENTER, GridBagConstraints.NONE,
+				new Insets(3, 12, 3, 0), 0, 0));
+			linkLabel.setVisible(false);
+		}
 		{
 			messageLabel = new JLabel();
 			messageLabel.setFont(messageLabel.getFont().deriveFont(Font.BOLD));
-			this.add(messageLabel, new GridBagConstraints(3, 0, 1, 1, 1.0, 0.0, GridBagConstraints.EAST, GridBagConstraints.NONE,
+			this.add(messageLabel, new GridBagConstraints(4, 0, 1, 1, 1.0, 0.0, GridBagConstraints.EAST, GridBagConstraints.NONE,
 				new Insets(0, 0, 0, 6), 0, 0));
 		}
 	}
@@ -113,10 +121,35 @@ public class StatusBar extends JPanel {
 					setMessage("Device connected.");
 				}
 				lastDevice = device;
+				setLinkDevice(device instanceof PG3B ? (PG3B)device : null);
 			}
 		});
 	}
 
+	/**
+	 * Shows the load on the connection to the PG3B, updated every second.
+	 */
+	private synchronized void setLinkDevice (final PG3B pg3b) {
+		if (linkTask != null) linkTask.cancel();
+		linkTask = null;
+		linkLabel.setVisible(pg3b != null);
+		if (pg3b == null) return;
+		linkTask = new TimerTask() {
+			public void run () {
+				final String summary = Diagnostics.getLinkSummary(pg3b);
+				final String report = Diagnostics.getLinkReport(pg3b);
+				EventQueue.invokeLater(new Runnable() {
+					public void run () {
+						linkLabel.setText("Link: " + summary);
+						linkLabel.setToolTipText("<html><pre>" + report + "</pre></html>");
+						linkLabel.setForeground(pg3b.getStats().getTimeouts() > 0 ? Color.red : Color.black);
+					}
+				});
+			}
+		};
+		Util.timer.scheduleAtFixedRate(linkTask, 0, 1000);
+	}
+
 	public void setController (final XboxController controller) {
 		controllerLabel.setIcon(controller == null ? redImage : greenImage);
 		controllerLabel.setText(controller == null ? "Controller" : "Controller: " + controller.getPort());
@@ -99,7 +99,7 @@ public class UI extends JFrame {
 	private JMenuItem pg3bConnectMenuItem, xim1ConnectMenuItem, xim2ConnectMenuItem, disconnectDeviceMenuItem,
 		disconnectControllerMenuItem, controllerConnectMenuItem, exitMenuItem;
 	private JCheckBoxMenuItem showControllerMenuItem, showLogMenuItem, pg3bDebugEnabledMenuItem, pg3bCalibrationEnabledMenuItem,
-		activationDisablesInputMenuItem, xim2ThumbsticksEnabledMenuItem;
+		pg3bPipelinedMenuItem, pg3bAutoReconnectMenuItem, activationDisablesInputMenuItem, xim2ThumbsticksEnabledMenuItem, asyncOutputMenuItem;
 	private JMenuItem roundTripMenuItem, clearMenuItem, resetMenuItem, pg3bCalibrateMenuItem, pg3bSetControllerTypeMenuItem;
 
 	private XboxControllerPanel controllerPanel;
@@ -236,16 +236,22 @@ public class UI extends JFrame {
 	}
 
 	public void setDevice (Device newDevice) {
-		if (device != null) device.close();
+		if (device != null) {
+			device.setAsync(false);
+			device.close();
+		}
 
 		device = newDevice;
 		Package.getGlobalPackage().set("device".intern(), device);
+		if (device != null) device.setAsync(asyncOutputMenuItem.isSelected());
 
 		if (device instanceof PG3B) {
 			PG3B pg3b = (PG3B)device;
 			try {
 				pg3b.setDebugEnabled(pg3bDebugEnabledMenuItem.isSelected());
 				pg3b.setCalibrationEnabled(pg3bCalibrationEnabledMenuItem.isSelected());
+				pg3b.setPipelined(pg3bPipelinedMenuItem.isSelected());
+				pg3b.setAutoReconnect(pg3bAutoReconnectMenuItem.isSelected());
 			} catch (IOException ex) {
 				if (Log.ERROR) error("Error setting PG3B settings.", ex);
 			}
@@ -609,6 +615,28 @@ public class UI extends JFrame {
 			}
 		});
 
+		asyncOutputMenuItem.addActionListener(new ActionListener() {
+			public void actionPerformed (ActionEvent event) {
+				if (device != null) device.setAsync(asyncOutputMenuItem.isSelected());
+			}
+		});
+
+		pg3bPipelinedMenuItem.addActionListener(new ActionListener() {
+			public void actionPerformed (ActionEvent event) {
+				try {
+					((PG3B)device).setPipelined(pg3bPipelinedMenuItem.isSelected());
+				} catch (IOException ex) {
+					if (Log.ERROR) error("Error setting PG3B pipelining.", ex);
+				}
+			}
+		});
+
+		pg3bAutoReconnectMenuItem.addActionListener(new ActionListener() {
+			public void actionPerformed (ActionEvent event) {
+				((PG3B)device).setAutoReconnect(pg3bAutoReconnectMenuItem.isSelected());
+			}
+		});
+
 		xim2ThumbsticksEnabledMenuItem.addActionListener(new ActionListener() {
 			public void actionPerformed (ActionEvent event) {
 				try {
@@ -758,6 +786,8 @@ public class UI extends JFrame {
 					xim2ConnectMenuItem = menu.add(new JMenuItem("Connect to XIM2..."));
 					resetMenuItem = menu.add(new JMenuItem("Reset Device"));
 					disconnectDeviceMenuItem = menu.add(new JMenuItem("Disconnect Device"));
+					asyncOutputMenuItem = new JCheckBoxMenuItem("Asynchronous Output");
+					menu.add(asyncOutputMenuItem);
 				}
 				menu.addSeparator();
 				{
@@ -822,6 +852,15 @@ public class UI extends JFrame {
 					pg3bMenu.add(pg3bCalibrationEnabledMenuItem);
 					pg3bCalibrationEnabledMenuItem.setSelected(true);
 				}
+				{
+					pg3bPipelinedMenuItem = new JCheckBoxMenuItem("Pipelined");
+					pg3bMenu.add(pg3bPipelinedMenuItem);
+				}
+				{
+					pg3bAutoReconnectMenuItem = new JCheckBoxMenuItem("Auto Reconnect");
+					pg3bMenu.add(pg3bAutoReconnectMenuItem);
+					pg3bAutoReconnectMenuItem.setSelected(true);
+				}
 			}
 			{
 				xim2Menu = new JMenu("XIM2");
@@ -47,6 +47,8 @@ public class XboxControllerPanel extends JPanel {
 	static final Timer timer = new Timer("PollController", true);
 
 	private Device device;
+	// The device state being painted, so all targets are drawn from the same snapshot.
+	private Device.State deviceState;
 	private XboxController controller;
 	private PackedImages packedImages;
 	private String overImageName;
@@ -71,11 +73,7 @@ public class XboxControllerPanel extends JPanel {
 	};
 
 	private Device.Listener deviceListener = new Device.Listener() {
-		public void buttonChanged (Button button, boolean pressed) {
-			repaint();
-		}
-
-		public void axisChanged (Axis axis, float state) {
+		public void changed (Device.Delta delta) {
 			repaint();
 		}
 
@@ -354,6 +352,8 @@ public class XboxControllerPanel extends JPanel {
 			dpadDirection = DPAD_NONE;
 		}
 
+		deviceState = device != null ? device.getState() : null;
+
 		g.setFont(g.getFont().deriveFont(10f));
 		g.translate(0, -10);
 
@@ -471,7 +471,7 @@ public class XboxControllerPanel extends JPanel {
 
 	private float getTargetState (Target target) {
 		if (controller != null) return controller.get(target);
-		if (device != null) return device.get(target);
+		if (deviceState != null) return deviceState.get(target);
 		return 0;
 	}
 
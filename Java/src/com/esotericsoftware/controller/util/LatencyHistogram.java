@@ -0,0 +1,109 @@
+package com.esotericsoftware.controller.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets that double in size. Adding a latency is cheap and does not allocate, so latencies can always be
+ * collected. Latencies may be added and read from any thread.
+ */
+public class LatencyHistogram {
+	/**
+	 * The number of buckets. Bucket i counts latencies of less than 2^i microseconds and at least 2^(i-1) microseconds. The last
+	 * bucket also counts all longer latencies.
+	 */
+	static public final int BUCKET_COUNT = 24;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong totalNanos = new AtomicLong(), maxNanos = new AtomicLong();
+
+	public void add (long nanos) {
+		buckets.incrementAndGet(Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(nanos / 1000)));
+		totalNanos.addAndGet(nanos);
+		while (true) {
+			long max = maxNanos.get();
+			if (nanos <= max || maxNanos.compareAndSet(max, nanos)) break;
+		}
+	}
+
+	/**
+	 * Adds the number of latencies in each bucket to the array.
+	 * @param counts Must have {@link #BUCKET_COUNT} entries.
+	 */
+	public void addCounts (long[] counts) {
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			counts[i] += buckets.get(i);
+	}
+
+	/**
+	 * Returns the number of latencies in each bucket.
+	 */
+	public long[] getCounts () {
+		long[] counts = new long[BUCKET_COUNT];
+		addCounts(counts);
+		return counts;
+	}
+
+	public long getCount () {
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			count += buckets.get(i);
+		return count;
+	}
+
+	public long getTotalNanos () {
+		return totalNanos.get();
+	}
+
+	/**
+	 * Returns the average latency in microseconds, or 0 if none have been added.
+	 */
+	public float getAverage () {
+		long count = getCount();
+		if (count == 0) return 0;
+		return totalNanos.get() / 1000f / count;
+	}
+
+	/**
+	 * Returns the longest latency in microseconds.
+	 */
+	public float getMax () {
+		return maxNanos.get() / 1000f;
+	}
+
+	/**
+	 * Returns the latency in microseconds that the percentage of latencies are within.
+	 * @see #getPercentile(long[], float)
+	 */
+	public long getPercentile (float percentile) {
+		return getPercentile(getCounts(), percentile);
+	}
+
+	public void reset () {
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			buckets.set(i, 0);
+		totalNanos.set(0);
+		maxNanos.set(0);
+	}
+
+	/**
+	 * Returns the latency in microseconds that the percentage of the counted latencies are within. The latency is the upper bound
+	 * of a bucket, so it is accurate to within a factor of two.
+	 * @param counts The number of latencies in each bucket.
+	 * @param percentile Between 0 and 1.
+	 * @return The latency, or 0 if nothing was counted.
+	 */
+	static public long getPercentile (long[] counts, float percentile) {
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			count += counts[i];
+		if (count == 0) return 0;
+		long target = (long)Math.ceil(count * percentile);
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			total += counts[i];
+			if (total >= target) return 1L << i;
+		}
+		return 1L << (BUCKET_COUNT - 1);
+	}
+}
@@ -0,0 +1,234 @@
+
+package com.esotericsoftware.controller.util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces a loop at a fixed rate. Each tick is scheduled for an absolute time, so time spent in the loop does not delay later
+ * ticks. The thread parks until shortly before a tick is due and then spins, so the tick period does not depend on the resolution
+ * of the operating system's timer.
+ * <p>
+ * Optionally, ticks slow to an idle rate when {@link #activity()} has not been called for a while. Calling it while idle wakes
+ * the waiting thread immediately and returns to the full rate.
+ * <p>
+ * Only one thread may wait for ticks. The statistics may be read from any thread.
+ */
+public class TickScheduler {
+	private final long period;
+	private long spinNanos = 200000;
+	private long nextTick;
+	private boolean started;
+	private long idlePeriod, idleDelay;
+	private volatile long lastActivity, wakeTime;
+	private volatile boolean idle;
+	private volatile Thread waiter;
+
+	// Only ticks at the full rate are sampled for lateness.
+	private volatile long ticks, sampledTicks, overruns, maxLateness;
+	private volatile double totalLateness, totalLatenessSquared;
+	private volatile long wakes, maxWakeLatency, totalWakeLatency;
+
+	/**
+	 * @param ticksPerSecond Typically 125, 250, 500 or 1000.
+	 */
+	public TickScheduler (int ticksPerSecond) {
+		if (ticksPerSecond <= 0) throw new IllegalArgumentException("ticksPerSecond must be >0: " + ticksPerSecond);
+		period = 1000000000L / ticksPerSecond;
+	}
+
+	/**
+	 * Blocks until the next tick is due. The first call returns immediately. If the previous tick ran longer than a period, this
+	 * returns immediately, counts an overrun and schedules the following ticks from now rather than running the missed ticks.
+	 * @throws InterruptedException If the thread is interrupted.
+	 */
+	public void waitForTick () throws InterruptedException {
+		long now = System.nanoTime();
+		if (!started) {
+			started = true;
+			nextTick = now;
+			lastActivity = now;
+			waiter = Thread.currentThread();
+			return;
+		}
+		long activity = lastActivity;
+		boolean idle = idlePeriod > 0 && now - activity > idleDelay;
+		// Written before lastActivity is checked again below, so activity() either sees idle or the change is seen here.
+		this.idle = idle;
+		// Activity during the previous tick ended idle without a wake.
+		if (!idle) wakeTime = 0;
+		nextTick += idle ? idlePeriod : period;
+		if (now - nextTick > 0) {
+			overruns++;
+			nextTick = now;
+			return;
+		}
+		long deadline = nextTick;
+		boolean woken = false;
+		while (true) {
+			if (Thread.interrupted()) throw new InterruptedException();
+			if (idle && lastActivity != activity) {
+				woken = true;
+				break;
+			}
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) break;
+			if (remaining > spinNanos)
+				LockSupport.parkNanos(remaining - spinNanos);
+			else {
+				while (System.nanoTime() - deadline < 0) {
+				}
+				break;
+			}
+		}
+		now = System.nanoTime();
+		ticks++;
+		if (woken) {
+			long wakeTime = this.wakeTime;
+			if (wakeTime == 0) wakeTime = lastActivity;
+			this.wakeTime = 0;
+			this.idle = false;
+			nextTick = now;
+			long latency = now - wakeTime;
+			wakes++;
+			if (latency > maxWakeLatency) maxWakeLatency = latency;
+			totalWakeLatency += latency;
+			return;
+		}
+		if (idle) return;
+		sampledTicks++;
+		long lateness = now - deadline;
+		if (lateness > maxLateness) maxLateness = lateness;
+		totalLateness += lateness;
+		totalLatenessSquared += (double)lateness * lateness;
+	}
+
+	/**
+	 * Records that there was input or other work, so ticks should be at the full rate. May be called from any thread. If the
+	 * scheduler is idle, the waiting thread returns from {@link #waitForTick()} immediately.
+	 */
+	public void activity () {
+		long now = System.nanoTime();
+		lastActivity = now;
+		if (!idle) return;
+		if (wakeTime == 0) wakeTime = now;
+		Thread waiter = this.waiter;
+		if (waiter != null) LockSupport.unpark(waiter);
+	}
+
+	/**
+	 * Slows ticks to the idle rate when {@link #activity()} has not been called for the delay. While idle, changes that do not call
+	 * {@link #activity()} are noticed at most one idle period late.
+	 * @param ticksPerSecond The idle rate, or 0 to always tick at the full rate.
+	 */
+	public void setIdleRate (int ticksPerSecond, long delayMillis) {
+		if (ticksPerSecond < 0) throw new IllegalArgumentException("ticksPerSecond must be >=0: " + ticksPerSecond);
+		if (delayMillis < 0) throw new IllegalArgumentException("delayMillis must be >=0: " + delayMillis);
+		idlePeriod = ticksPerSecond == 0 ? 0 : 1000000000L / ticksPerSecond;
+		idleDelay = delayMillis * 1000000;
+	}
+
+	/**
+	 * Returns true if ticks are at the idle rate.
+	 */
+	public boolean isIdle () {
+		return idle;
+	}
+
+	/**
+	 * Returns the time between ticks in nanoseconds.
+	 */
+	public long getPeriod () {
+		return period;
+	}
+
+	/**
+	 * Sets how long before a tick is due that the thread stops parking and spins. Larger values are more accurate when the
+	 * operating system wakes parked threads late, but use more CPU. Default is 200 microseconds.
+	 */
+	public void setSpinTime (long micros) {
+		if (micros < 0) throw new IllegalArgumentException("micros must be >=0: " + micros);
+		spinNanos = micros * 1000;
+	}
+
+	/**
+	 * Returns the number of ticks that were waited for, not including overruns.
+	 */
+	public long getTickCount () {
+		return ticks;
+	}
+
+	/**
+	 * Returns the number of times a tick ran longer than the period.
+	 */
+	public long getOverruns () {
+		return overruns;
+	}
+
+	/**
+	 * Returns the number of times {@link #activity()} woke the scheduler from idle.
+	 */
+	public long getWakeCount () {
+		return wakes;
+	}
+
+	/**
+	 * Returns the average time in microseconds from {@link #activity()} waking the scheduler from idle until waiting returned.
+	 */
+	public float getAverageWakeLatency () {
+		long wakes = this.wakes;
+		if (wakes == 0) return 0;
+		return totalWakeLatency / 1000f / wakes;
+	}
+
+	/**
+	 * Returns the longest time in microseconds from {@link #activity()} waking the scheduler from idle until waiting returned.
+	 */
+	public float getMaxWakeLatency () {
+		return maxWakeLatency / 1000f;
+	}
+
+	/**
+	 * Returns the average time in microseconds that waiting returned after the tick was due. Ticks while idle are not included.
+	 */
+	public float getAverageLateness () {
+		long sampledTicks = this.sampledTicks;
+		if (sampledTicks == 0) return 0;
+		return (float)(totalLateness / sampledTicks / 1000);
+	}
+
+	/**
+	 * Returns the longest time in microseconds that waiting returned after the tick was due.
+	 */
+	public float getMaxLateness () {
+		return maxLateness / 1000f;
+	}
+
+	/**
+	 * Returns the standard deviation in microseconds of the time that waiting returned after the tick was due. Ticks while idle are
+	 * not included.
+	 */
+	public float getJitter () {
+		long sampledTicks = this.sampledTicks;
+		if (sampledTicks == 0) return 0;
+		double mean = totalLateness / sampledTicks;
+		return (float)(Math.sqrt(Math.max(0, totalLatenessSquared / sampledTicks - mean * mean)) / 1000);
+	}
+
+	public void resetStats () {
+		ticks = 0;
+		sampledTicks = 0;
+		overruns = 0;
+		maxLateness = 0;
+		totalLateness = 0;
+		totalLatenessSquared = 0;
+		wakes = 0;
+		maxWakeLatency = 0;
+		totalWakeLatency = 0;
+	}
+
+	public String toString () {
+		return String.format("%d ticks, %d overruns, lateness avg %.1fus max %.1fus, jitter %.1fus, %d wakes avg %.1fus max %.1fus",
+			getTickCount(), getOverruns(), getAverageLateness(), getMaxLateness(), getJitter(), getWakeCount(),
+			getAverageWakeLatency(), getMaxWakeLatency());
+	}
+}
@@ -48,6 +48,8 @@ public class XIM1 extends Device {
 	}
 
 	private ByteBuffer stateByteBuffer;
+	// Guarded by stateByteBuffer.
+	private boolean inFrame, frameChanged;
 
 	public XIM1 () throws IOException {
 		checkResult(connect());
@@ -58,19 +60,57 @@ public class XIM1 extends Device {
 
 	protected void setButton (Button button, boolean pressed) throws IOException {
 		int index = buttonToIndex[button.ordinal()];
-		synchronized (this) {
+		synchronized (stateByteBuffer) {
 			stateByteBuffer.put(index * 4, (byte)(pressed ? 1 : 0));
-			checkResult(setState(stateByteBuffer));
+			writeState();
 		}
 	}
 
 	protected void setAxis (Axis axis, float state) throws IOException {
 		int index = axisToIndex[axis.ordinal()];
-		synchronized (this) {
+		synchronized (stateByteBuffer) {
 			if (axis.isTrigger())
-				stateByteBuffer.put(index * 4, (byte)(state == 0 ? 0 : 1));
+				stateByteBuffer.put(index * 4, (byte)quantize(axis, state));
 			else
-				stateByteBuffer.put(index, (byte)(127 * state));
+				stateByteBuffer.put(index, (byte)quantize(axis, state));
+			writeState();
+		}
+	}
+
+	/**
+	 * The XIM1 sets the sticks using an 8-bit value and the triggers as either pressed or released.
+	 */
+	protected int quantize (Axis axis, float state) {
+		if (axis.isTrigger()) return state == 0 ? 0 : 1;
+		return (byte)(127 * state);
+	}
+
+	/**
+	 * Sends the state buffer to the XIM, or only marks it changed while a frame is in progress. Must be called while synchronized
+	 * on the state buffer.
+	 */
+	private void writeState () throws IOException {
+		if (inFrame) {
+			frameChanged = true;
+			return;
+		}
+		checkResult(setState(stateByteBuffer));
+	}
+
+	/**
+	 * Changes made until {@link #commitFrame()} are sent to the XIM with a single state update.
+	 */
+	protected void beginFrame () {
+		synchronized (stateByteBuffer) {
+			inFrame = true;
+		}
+	}
+
+	protected void commitFrame () throws IOException {
+		synchronized (stateByteBuffer) {
+			inFrame = false;
+			if (!frameChanged) return;
+			frameChanged = false;
 			checkResult(setState(stateByteBuffer));
 		}
 	}
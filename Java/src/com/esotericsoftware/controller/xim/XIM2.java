@@ -49,6 +49,8 @@ public class XIM2 extends Device {
 	}
 
 	private ByteBuffer stateByteBuffer;
+	// Guarded by stateByteBuffer.
+	private boolean inFrame, frameChanged;
 	private ShortBuffer axisStateBuffer;
 
 	public XIM2 () throws IOException {
@@ -62,21 +64,28 @@ public class XIM2 extends Device {
 
 	protected void setButton (Button button, boolean pressed) throws IOException {
 		int index = buttonToIndex[button.ordinal()];
-		synchronized (this) {
+		synchronized (stateByteBuffer) {
 			stateByteBuffer.put(index, (byte)(pressed ? 1 : 0));
-			checkResult(setState(stateByteBuffer, 0));
+			writeState();
 		}
 	}
 
 	protected void setAxis (Axis axis, float state) throws IOException {
 		int index = axisToIndex[axis.ordinal()];
-		if (axis.isY()) state = -state;
-		synchronized (this) {
-			axisStateBuffer.put(index, (short)(32767 * state));
-			checkResult(setState(stateByteBuffer, 0));
+		synchronized (stateByteBuffer) {
+			axisStateBuffer.put(index, (short)quantize(axis, state));
+			writeState();
 		}
 	}
 
+	/**
+	 * The XIM2 sets each axis using a 16-bit value.
+	 */
+	protected int quantize (Axis axis, float state) {
+		if (axis.isY()) state = -state;
+		return (short)(32767 * state);
+	}
+
 	/**
 	 * If true, the thumbsticks can be used while the XIM is running.
 	 * @throws IOException When communication with the XIM fails.
@@ -85,6 +94,36 @@ public class XIM2 extends Device {
 		checkResult(setMode(enabled ? 1 : 0));
 	}
 
+	/**
+	 * Sends the state buffer to the XIM, or only marks it changed while a frame is in progress. Must be called while synchronized
+	 * on the state buffer.
+	 */
+	private void writeState () throws IOException {
+		if (inFrame) {
+			frameChanged = true;
+			return;
+		}
+		checkResult(setState(stateByteBuffer, 0));
+	}
+
+	/**
+	 * Changes made until {@link #commitFrame()} are sent to the XIM with a single state update.
+	 */
+	protected void beginFrame () {
+		synchronized (stateByteBuffer) {
+			inFrame = true;
+		}
+	}
+
+	protected void commitFrame () throws IOException {
+		synchronized (stateByteBuffer) {
+			inFrame = false;
+			if (!frameChanged) return;
+			frameChanged = false;
+			checkResult(setState(stateByteBuffer, 0));
+		}
+	}
+
 	void checkResult (int status) throws IOException {
 		if (status == 0) return;
 		throw new IOException("Error communicating with XIM2: " + statusToMessage.get(status));
@@ -50,14 +50,18 @@
 static sys_config_t config;
 static uint8_t magic[] = EEPROM_MAGIC_NUMBER;
 static uint8_t logging;
+static uint8_t binary;
+static uint8_t reply[EEPROM_PAGE_SIZE + 1];
+static uint8_t replySize;
+static uint16_t replySequence;
 
 /*
  ********************************************************************************
  * Private Functions
  ********************************************************************************
  */
-static uint8_t CalculateCrc( uint8_t *data, uint8_t size );
 static uint8_t IsConfigValid( void );
+static void SendFrame( uint16_t sequence, uint8_t command, uint8_t *payload, uint8_t size );
 static uint8_t UInt4ToHex( uint8_t data );
 static void InitSystemConfig( void );
 
@@ -140,7 +144,9 @@ uint8_t SYS_CalibratedValue( uint8_t xboxTarget, uint8_t rawValue )
  */
 uint8_t SYS_LogByte( uint8_t prefix, uint8_t data )
 {
-    if( logging )
+    if( logging && binary )
+        SendFrame( SYS_FRAME_LOG, prefix, &data, 1 );
+    else if( logging )
     {
         usb_serial_putchar( prefix );
         usb_serial_putchar( ' ' );
@@ -159,7 +165,15 @@ uint8_t SYS_LogByte( uint8_t prefix, uint8_t data )
  */
 uint16_t SYS_LogWord( uint8_t prefix, uint16_t data )
 {
-    if( logging )
+    uint8_t bytes[2];
+
+    if( logging && binary )
+    {
+        bytes[0] = data >> 8;
+        bytes[1] = data;
+        SendFrame( SYS_FRAME_LOG, prefix, bytes, 2 );
+    }
+    else if( logging )
     {
         usb_serial_putchar( prefix );
         usb_serial_putchar( ' ' );
@@ -182,21 +196,22 @@ void SYS_ReadPage( uint8_t page )
 {
     uint8_t crc8 = 0xff;
 
-    usb_serial_putchar( ' ' );
+    if( ! binary )
+        usb_serial_putchar( ' ' );
     for( uint16_t address = (uint16_t)page << 5; address < ( (uint16_t)page << 5 ) + EEPROM_PAGE_SIZE; address++ )
     {
         uint8_t byte = eeprom_read_byte( (void *)address );
         crc8 = pgm_read_byte( &crctable[crc8 ^ byte] );
-        usb_serial_putchar( UInt4ToHex( byte >> 4 ) );
-        usb_serial_putchar( UInt4ToHex( byte ) );
+        SYS_WriteByte( byte );
     }
-    usb_serial_putchar( UInt4ToHex( crc8 >> 4 ) );
-    usb_serial_putchar( UInt4ToHex( crc8 ) );
+    SYS_WriteByte( crc8 );
 }
 
 /*
  ********************************************************************************
  * SYS_WritePage
+ *
+ * The buffer holds the page's bytes, not hex digits.
  ********************************************************************************
  */
 void SYS_WritePage( uint8_t page, uint8_t *buffer )
@@ -204,16 +219,200 @@ void SYS_WritePage( uint8_t page, uint8_t *buffer )
 //  static char error[] = "CRC FAILED";
     uint8_t crc8 = 0xff;
     
-    for( uint16_t address = (uint16_t)page << 5; address < ( (uint16_t)page << 5 ) + EEPROM_PAGE_SIZE; address++, buffer += 2 )
+    for( uint16_t address = (uint16_t)page << 5; address < ( (uint16_t)page << 5 ) + EEPROM_PAGE_SIZE; address++, buffer++ )
     {
-        uint8_t byte = HexToUInt8( buffer );
+        uint8_t byte = *buffer;
         crc8 = pgm_read_byte( &crctable[crc8 ^ byte] );
         eeprom_write_byte( (void *)address, byte );
     }
-//  if( crc8 - HexToUInt8( buffer ) > 0 )
+//  if( crc8 - *buffer > 0 )
 //      usb_serial_write( (void *)error, sizeof( error ) - 1 );
 }
 
+/*
+ ********************************************************************************
+ * SYS_ReadPages
+ *
+ * Reads up to SYS_BULK_PAGES_MAX consecutive pages followed by a single CRC
+ * over all of their bytes. In binary mode a reply larger than the reply buffer
+ * is sent as data frames before the reply frame.
+ ********************************************************************************
+ */
+void SYS_ReadPages( uint8_t page, uint8_t count )
+{
+    uint8_t crc8 = 0xff;
+    uint16_t start = (uint16_t)page << EEPROM_PAGE_BITS;
+    uint16_t end;
+
+    if( count > SYS_BULK_PAGES_MAX )
+        count = SYS_BULK_PAGES_MAX;
+    end = start + ( (uint16_t)count << EEPROM_PAGE_BITS );
+    if( ! binary )
+        usb_serial_putchar( ' ' );
+    for( uint16_t address = start; address < end; address++ )
+    {
+        uint8_t byte = address <= E2END ? eeprom_read_byte( (void *)address ) : 0xff;
+        crc8 = pgm_read_byte( &crctable[crc8 ^ byte] );
+        SYS_WriteByte( byte );
+    }
+    SYS_WriteByte( crc8 );
+}
+
+/*
+ ********************************************************************************
+ * SYS_WriteConfigByte
+ *
+ * Writes a single byte of a bulk page write as it is received. Addresses past
+ * the end of the EEPROM are ignored.
+ ********************************************************************************
+ */
+void SYS_WriteConfigByte( uint16_t address, uint8_t data )
+{
+    if( address <= E2END )
+        eeprom_write_byte( (void *)address, data );
+}
+
+/*
+ ********************************************************************************
+ * SYS_WritePagesCrc
+ *
+ * Replies to a bulk page write with the CRC of the pages read back from the
+ * EEPROM, so the host verifies what was actually stored.
+ ********************************************************************************
+ */
+void SYS_WritePagesCrc( uint8_t page, uint8_t count )
+{
+    uint8_t crc8 = 0xff;
+    uint16_t start = (uint16_t)page << EEPROM_PAGE_BITS;
+    uint16_t end = start + ( (uint16_t)count << EEPROM_PAGE_BITS );
+
+    if( ! binary )
+        usb_serial_putchar( ' ' );
+    for( uint16_t address = start; address < end; address++ )
+    {
+        uint8_t byte = address <= E2END ? eeprom_read_byte( (void *)address ) : 0xff;
+        crc8 = pgm_read_byte( &crctable[crc8 ^ byte] );
+    }
+    SYS_WriteByte( crc8 );
+}
+
+/*
+ ********************************************************************************
+ * SYS_WriteCapabilities
+ *
+ * Reports the optional commands this firmware supports as a single hex byte.
+ * Firmware that predates this command acknowledges it without a payload.
+ ********************************************************************************
+ */
+void SYS_WriteCapabilities( void )
+{
+    if( ! binary )
+        usb_serial_putchar( ' ' );
+    SYS_WriteByte( SYS_CAPABILITIES );
+}
+
+/*
+ ********************************************************************************
+ * SYS_EnableBinary
+ *
+ * This function sets or clears the binary protocol flag. When enabled, commands
+ * are received and acknowledged as frames of the form:
+ *
+ *   SYNC LEN SEQ_H SEQ_L OP [PAYLOAD] CRC
+ *
+ * where LEN counts the bytes from SEQ_H through the payload and CRC covers the
+ * bytes from LEN through the payload. Replies use OP 'K' and debug messages
+ * are sent as frames with the sequence FFFF and the log prefix as OP.
+ ********************************************************************************
+ */
+void SYS_EnableBinary( uint8_t value )
+{
+    binary = value > 0;
+}
+
+/*
+ ********************************************************************************
+ * SYS_IsBinaryEnabled
+ ********************************************************************************
+ */
+uint8_t SYS_IsBinaryEnabled( void )
+{
+    return binary;
+}
+
+/*
+ ********************************************************************************
+ * SYS_WriteByte
+ *
+ * Writes a byte of a command's reply. In binary mode the byte is held until
+ * SYS_EndReply sends the reply frame, otherwise it is written as hex. When the
+ * reply buffer is full its bytes are sent as a data frame with the reply's
+ * sequence and the host joins them with the reply frame.
+ ********************************************************************************
+ */
+void SYS_WriteByte( uint8_t data )
+{
+    if( binary )
+    {
+        if( replySize == sizeof( reply ) )
+        {
+            SendFrame( replySequence, SYS_FRAME_DATA, reply, replySize );
+            replySize = 0;
+        }
+        reply[replySize++] = data;
+    }
+    else
+    {
+        usb_serial_putchar( UInt4ToHex( data >> 4 ) );
+        usb_serial_putchar( UInt4ToHex( data ) );
+    }
+}
+
+/*
+ ********************************************************************************
+ * SYS_BeginReply
+ ********************************************************************************
+ */
+void SYS_BeginReply( uint16_t sequence )
+{
+    replySequence = sequence;
+    replySize = 0;
+}
+
+/*
+ ********************************************************************************
+ * SYS_EndReply
+ ********************************************************************************
+ */
+void SYS_EndReply( void )
+{
+    SendFrame( replySequence, SYS_FRAME_REPLY, reply, replySize );
+}
+
+/*
+ ********************************************************************************
+ * SendFrame
+ ********************************************************************************
+ */
+static void SendFrame( uint16_t sequence, uint8_t command, uint8_t *payload, uint8_t size )
+{
+    uint8_t header[SYS_FRAME_HEADER_SIZE + 1];
+    uint8_t crc8;
+
+    header[0] = size + SYS_FRAME_HEADER_SIZE;
+    header[1] = sequence >> 8;
+    header[2] = sequence;
+    header[3] = command;
+    crc8 = SYS_CalculateCrc( header, sizeof( header ) );
+    for( uint8_t i = 0; i < size; i++ )
+        crc8 = pgm_read_byte( &crctable[crc8 ^ payload[i]] );
+
+    usb_serial_putchar( SYS_FRAME_SYNC );
+    usb_serial_write( header, sizeof( header ) );
+    usb_serial_write( payload, size );
+    usb_serial_putchar( crc8 );
+}
+
 /*
  ********************************************************************************
  * SYS_EnableLogging
@@ -242,10 +441,10 @@ uint8_t SYS_IsLoggingEnabled( void )
 
 /*
  ********************************************************************************
- * CalculateCrc
+ * SYS_CalculateCrc
  ********************************************************************************
  */
-static uint8_t CalculateCrc( uint8_t *data, uint8_t size )
+uint8_t SYS_CalculateCrc( uint8_t *data, uint8_t size )
 {
     uint8_t crc8 = 0xFF;
     for( uint8_t i = 0; i < size; i++ )
@@ -263,7 +462,7 @@ static uint8_t IsConfigValid( void )
 {
     if( strncmp( (void *)config.magic, (void *)magic, sizeof( config.magic ) ) )
         return 0;
-    if( CalculateCrc( config.magic, sizeof( sys_config_t ) - 1 ) - config.crc )
+    if( SYS_CalculateCrc( config.magic, sizeof( sys_config_t ) - 1 ) - config.crc )
         return 0;
 
     return 1;
@@ -284,7 +483,7 @@ static void InitSystemConfig( void )
         config.version = EEPROM_CONTENTS_VERSION;
         config.model = 0;
         config.calibration = 0;
-        config.crc = CalculateCrc( config.magic, sizeof( sys_config_t ) - 1 );
+        config.crc = SYS_CalculateCrc( config.magic, sizeof( sys_config_t ) - 1 );
         eeprom_write_block( &config, 0, sizeof( config ) );
     }
 }
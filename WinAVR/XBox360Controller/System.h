@@ -48,6 +48,18 @@
 #define EEPROM_MAGIC_NUMBER         { 'P', 'G', '3', 'B' }
 #define EEPROM_CONTENTS_VERSION     1
 
+#define SYS_CAPABILITY_STATE        0x01
+#define SYS_CAPABILITY_BINARY       0x02
+#define SYS_CAPABILITY_BULK         0x04
+#define SYS_CAPABILITIES            (SYS_CAPABILITY_STATE|SYS_CAPABILITY_BINARY|SYS_CAPABILITY_BULK)
+#define SYS_BULK_PAGES_MAX          8
+
+#define SYS_FRAME_SYNC              0xA5
+#define SYS_FRAME_HEADER_SIZE       3
+#define SYS_FRAME_REPLY             'K'
+#define SYS_FRAME_DATA              'D'
+#define SYS_FRAME_LOG               0xFFFF
+
 typedef struct _contents
 {
     uint8_t crc;
@@ -62,6 +74,16 @@ extern void SYS_Init( void );
 extern void SYS_EnableLogging( uint8_t value );
 extern void SYS_ReadPage( uint8_t page );
 extern void SYS_WritePage( uint8_t page, uint8_t *buffer );
+extern void SYS_ReadPages( uint8_t page, uint8_t count );
+extern void SYS_WriteConfigByte( uint16_t address, uint8_t data );
+extern void SYS_WritePagesCrc( uint8_t page, uint8_t count );
+extern void SYS_WriteCapabilities( void );
+extern void SYS_EnableBinary( uint8_t value );
+extern uint8_t SYS_IsBinaryEnabled( void );
+extern void SYS_WriteByte( uint8_t data );
+extern void SYS_BeginReply( uint16_t sequence );
+extern void SYS_EndReply( void );
+extern uint8_t SYS_CalculateCrc( uint8_t *data, uint8_t size );
 extern uint8_t SYS_IsLoggingEnabled( void );
 extern uint8_t SYS_CalibratedValue( uint8_t xboxTarget, uint8_t rawValue );
 extern uint8_t SYS_ControllerModel( void );
@@ -63,7 +63,11 @@
  ********************************************************************************
  */
 static void ExecuteCommand( uint8_t *buffer, uint8_t size );
+static void ExecuteFrame( uint8_t *frame );
+static int16_t ReceiveByte( void );
+static uint8_t ReceivePages( uint8_t page, uint8_t count );
 static uint8_t ReceiveString( uint8_t *buffer, uint8_t size );
+static uint8_t ReceiveFrame( uint8_t *buffer, uint8_t size );
 static void DoWhileIdle( void );
 void main( void ) __attribute__ ((noreturn));
 
@@ -128,11 +132,76 @@ void main( void )
         // Listen for commands and process them
         while( 1 )
         {
-            uint8_t size = ReceiveString( buffer, sizeof( buffer ) );
-            if( size == 255 ) break;
-            ExecuteCommand( buffer, size );
+            if( SYS_IsBinaryEnabled( ) )
+            {
+                uint8_t size = ReceiveFrame( buffer, sizeof( buffer ) );
+                if( size == 255 ) break;
+                if( size > 0 ) ExecuteFrame( buffer );
+            }
+            else
+            {
+                uint8_t size = ReceiveString( buffer, sizeof( buffer ) );
+                if( size == 255 ) break;
+                ExecuteCommand( buffer, size );
+            }
         }
+
+        // A new connection always starts with the ASCII protocol.
+        SYS_EnableBinary( 0 );
+    }
+}
+
+/*
+ ****************************************************************************************************
+ * ReceiveByte
+ *
+ * Receive a byte from the USB serial port. The return value is the byte, or -1
+ * if the virtual serial connection was closed while waiting.
+ ****************************************************************************************************
+ */
+static int16_t ReceiveByte( void )
+{
+    int16_t r;
+
+    while( 1 )
+    {
+        while( usb_serial_available( ) == 0 )
+            DoWhileIdle( );
+        r = usb_serial_getchar( );
+        if( r != -1 )
+            return r;
+        if( ! usb_configured( ) || ! ( usb_serial_get_control( ) & USB_SERIAL_DTR ) )
+            return -1; // user no longer connected
+    }
+}
+
+/*
+ ****************************************************************************************************
+ * ReceivePages
+ *
+ * Receive the raw bytes of a bulk page write that follow the command, writing each byte to the
+ * EEPROM as it arrives so no buffer is needed for the pages. The CRC of the written pages is then
+ * added to the reply.
+ *
+ * The return value is 0, or 255 if the virtual serial connection was closed while waiting.
+ ****************************************************************************************************
+ */
+static uint8_t ReceivePages( uint8_t page, uint8_t count )
+{
+    int16_t r;
+    uint16_t address = (uint16_t)page << EEPROM_PAGE_BITS;
+    uint16_t end = address + ( (uint16_t)count << EEPROM_PAGE_BITS );
+
+    for( ; address < end; address++ )
+    {
+        r = ReceiveByte( );
+        if( r == -1 )
+            return 255;
+        SYS_WriteConfigByte( address, r );
     }
+    SYS_WritePagesCrc( page, count );
+
+    return 0;
 }
 
 /*
@@ -155,29 +224,70 @@ static uint8_t ReceiveString( uint8_t *buffer, uint8_t size )
 
     while( count < size )
     {
-        while( usb_serial_available( ) == 0 )
-            DoWhileIdle( );
-        r = usb_serial_getchar( );
+        r = ReceiveByte( );
         if( r == -1 )
+            return 255; // user no longer connected
+        if( r == '\r' || r == '\n')
+            return count;
+        if ( r >= ' ' && r <= '~' )
         {
-            if( ! usb_configured( ) || ! ( usb_serial_get_control( ) & USB_SERIAL_DTR ) )
-                return 255; // user no longer connected
-        }
-        else
-        {
-            if( r == '\r' || r == '\n')
-                return count;
-            if ( r >= ' ' && r <= '~' )
-            {
-                *buffer++ = r;
-                count++;
-            }
+            *buffer++ = r;
+            count++;
         }
     }
 
     return count;
 }
 
+/*
+ ****************************************************************************************************
+ * ReceiveFrame
+ *
+ * Receive a binary frame from the USB serial port. Bytes are skipped until the
+ * sync byte is found, then the length, sequence, command and payload are stored
+ * in the buffer without the sync byte or CRC.
+ *
+ * The return value is the number of bytes stored, 0 if the frame was invalid,
+ * or 255 if the virtual serial connection was closed while waiting.
+ ****************************************************************************************************
+ */
+static uint8_t ReceiveFrame( uint8_t *buffer, uint8_t size )
+{
+    int16_t r;
+    uint8_t length;
+
+    do
+    {
+        r = ReceiveByte( );
+        if( r == -1 )
+            return 255;
+    } while( r != SYS_FRAME_SYNC );
+
+    r = ReceiveByte( );
+    if( r == -1 )
+        return 255;
+    length = r;
+    if( length < SYS_FRAME_HEADER_SIZE || length >= size )
+        return 0;
+
+    buffer[0] = length;
+    for( uint8_t i = 1; i <= length; i++ )
+    {
+        r = ReceiveByte( );
+        if( r == -1 )
+            return 255;
+        buffer[i] = r;
+    }
+
+    r = ReceiveByte( );
+    if( r == -1 )
+        return 255;
+    if( SYS_CalculateCrc( buffer, length + 1 ) != r )
+        return 0;
+
+    return length + 1;
+}
+
 /*
  ****************************************************************************************************
  * Hexadecimal to Binary Convertion Functions (no error checking ... pass in a valid string or
@@ -213,6 +323,21 @@ static inline uint16_t word( uint8_t *digits )
  *  Filler: Offsets 1, 6, 8: Any ASCII character but spaces are more readable.
  * Example: X 5A5A A 000D\r
  *
+ * The state command sets every button and control at once: X [SSSS] T [BBBB][WW x 6]\r where,
+ *    BBBB: Offset 9: Bitmask of pressed buttons, bit n is XBoxButton_t n.
+ *      WW: Offset 13: Raw wiper value for each control from LeftStickX to RightTrigger.
+ * Example: X 5A5A T 000180808080FFFF\r
+ *
+ * The mode command switches to the binary protocol after it is acknowledged: X [SSSS] M 01\r
+ *
+ * The bulk read command reads up to 8 consecutive pages: X [SSSS] B [PP][NN]\r where,
+ *      PP: Offset 9: First page.
+ *      NN: Offset 11: Number of pages.
+ * The reply holds the bytes of the pages followed by a CRC of all of them.
+ *
+ * The bulk write command is followed by the raw bytes of NN pages: X [SSSS] U [PP][NN]\r<bytes>
+ * The reply is sent once all of the bytes are written and holds the CRC of the pages in the EEPROM.
+ *
  * Acknowledge is sent in response: X [SSSS] OK\r
  *       X: Offset 0: Literal 'X' character meaning eXecute command;
  *    SSSS: Offset 2: Sequence identifier with four ASCII characters. Whatever was given in the command.
@@ -229,6 +354,8 @@ static void ExecuteCommand( uint8_t *buffer, uint8_t size )
     uint8_t command = *( buffer + 7 );
     uint16_t word0 = word( buffer + 9 );
     uint8_t byte0 = byte( buffer + 9 );
+    uint8_t byte1 = byte( buffer + 11 );
+    uint8_t wipers[XB_CONTROL_COUNT];
 
     if( buffer[0] != 'X' )
         return;
@@ -239,14 +366,74 @@ static void ExecuteCommand( uint8_t *buffer, uint8_t size )
     switch( command )
     {
         case 'A': EVA_PerformAction( word0 ); break;
+        case 'B': SYS_ReadPages( byte0, byte1 ); break;
         case 'C': XB_EnableCalibration( byte0 ); break;
         case 'D': SYS_EnableLogging( byte0 ); break;
         case 'E': EVA_InvokeEventAction( word0 ); break;
         case 'G': XB_SetIsWireless( byte0 ); break;
+        case 'M': SYS_EnableBinary( byte0 ); break;
         case 'P': PROF_Initialize( ); break;
         case 'Q': PROF_Finalize( ); break;
         case 'R': SYS_ReadPage( byte0 ); break;
-        case 'W': SYS_WritePage( byte0, buffer + 11 ); break;
+        case 'T':
+            for( uint8_t i = 0; i < XB_CONTROL_COUNT; i++ )
+                wipers[i] = byte( buffer + 13 + i * 2 );
+            XB_SetState( word0, wipers );
+            break;
+        case 'U':
+            if( ReceivePages( byte0, byte1 ) )
+                return;
+            break;
+        case 'V': SYS_WriteCapabilities( ); break;
+        case 'W':
+            // Decode the page in place, each byte replaces the digits at or after it.
+            for( uint8_t i = 0; i < EEPROM_PAGE_SIZE; i++ )
+                buffer[11 + i] = byte( buffer + 11 + i * 2 );
+            SYS_WritePage( byte0, buffer + 11 );
+            break;
     }
     usb_serial_putchar( '\n' );
 }
+
+/*
+ ****************************************************************************************************
+ * Executes a binary frame received by ReceiveFrame. The frame holds the same commands as
+ * ExecuteCommand with the arguments as raw bytes instead of hex digits. The reply frame is sent
+ * after the command completes, so any debug message frames are sent before it.
+ ****************************************************************************************************
+ */
+static void ExecuteFrame( uint8_t *frame )
+{
+    uint16_t sequence = ( frame[1] << 8 ) | frame[2];
+    uint8_t command = frame[3];
+    uint8_t *payload = frame + 4;
+    uint16_t word0 = ( payload[0] << 8 ) | payload[1];
+    uint8_t byte0 = payload[0];
+    uint8_t byte1 = payload[1];
+
+    SYS_BeginReply( sequence );
+    switch( command )
+    {
+        case 'A': EVA_PerformAction( word0 ); break;
+        case 'B': SYS_ReadPages( byte0, byte1 ); break;
+        case 'C': XB_EnableCalibration( byte0 ); break;
+        case 'D': SYS_EnableLogging( byte0 ); break;
+        case 'E': EVA_InvokeEventAction( word0 ); break;
+        case 'G': XB_SetIsWireless( byte0 ); break;
+        case 'P': PROF_Initialize( ); break;
+        case 'Q': PROF_Finalize( ); break;
+        case 'R': SYS_ReadPage( byte0 ); break;
+        case 'T': XB_SetState( word0, payload + 2 ); break;
+        case 'U':
+            if( ReceivePages( byte0, byte1 ) )
+                return;
+            break;
+        case 'V': SYS_WriteCapabilities( ); break;
+        case 'W': SYS_WritePage( byte0, payload + 1 ); break;
+    }
+    SYS_EndReply( );
+
+    // Switching protocols takes effect after the reply so it is sent as a frame.
+    if( command == 'M' )
+        SYS_EnableBinary( byte0 );
+}
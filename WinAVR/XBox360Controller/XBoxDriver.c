@@ -87,6 +87,7 @@ static const uint8_t controls[] PROGMEM = {
 static uint8_t XB_CalibrateWiper( uint8_t trigger, uint8_t value );
 static void XB_ControlAction( uint16_t event, uint16_t action );
 static void XB_ButtonAction( uint16_t event, uint16_t action );
+static void XB_SetButton( uint8_t button, uint8_t pressed );
 static void XB_ResetButtons( void );
 static void XB_ResetControls( void );
 
@@ -138,28 +139,65 @@ void XB_XBoxAction( uint16_t event, uint16_t action )
 void XB_ButtonAction( uint16_t event, uint16_t action )
 {
     uint8_t button = pgm_read_byte( &buttons[ EVA_ActionValue( action ) ] );
-    uint8_t port = XB_ButtonPort( button );
-    uint8_t pin = _BV( XB_ButtonPin( button ) );
 
     SYS_LogByte( 'B', button );
     SYS_LogByte( 'V', EVA_ActionValue( action ) );
 
+    XB_SetButton( button, EVA_ActionTarget( action ) == XKeyPress );
+}
+
+/*
+ ********************************************************************************
+ * XB_SetButton
+ ********************************************************************************
+ */
+static void XB_SetButton( uint8_t button, uint8_t pressed )
+{
+    uint8_t port = XB_ButtonPort( button );
+    uint8_t pin = _BV( XB_ButtonPin( button ) );
+
     if( ! isWireless )
     {
-        if( EVA_ActionTarget( action ) == XKeyPress )
+        if( pressed )
             _SFR_IO8( port ) |= pin;        // Hi
         else
             _SFR_IO8( port ) &= ~pin;       // Lo
     }
     else
     {
-        if( EVA_ActionTarget( action ) == XKeyPress )
+        if( pressed )
             _SFR_IO8( port ) &= ~pin;       // Lo
         else
             _SFR_IO8( port ) |= pin;        // Hi
     }
 }
 
+/*
+ ********************************************************************************
+ * XB_SetState
+ *
+ * Sets every button and control at once. Bit n of pressed is the
+ * state of XBoxButton_t n and wipers holds one raw wiper value for each
+ * XBoxTarget_t from LeftStickX to RightTrigger.
+ ********************************************************************************
+ */
+void XB_SetState( uint16_t pressed, uint8_t *wipers )
+{
+    SYS_LogWord( 'S', pressed );
+
+    for( uint8_t index = 0; index < XB_BUTTON_COUNT; index++ )
+        XB_SetButton( pgm_read_byte( &buttons[ index ] ), ( pressed >> index ) & 1 );
+
+    for( uint8_t target = 0; target < XB_CONTROL_COUNT; target++ )
+    {
+        uint8_t control = pgm_read_byte( &controls[ target ] );
+        uint8_t wiper = XB_CalibrateWiper( target, wipers[ target ] );
+        SYS_LogByte( 'C', control );
+        SYS_LogByte( 'V', wiper );
+        SPI_TransferBytes( XB_ControlPin( control ), ACTION_WIPER | XB_ControlPot( control ), wiper );
+    }
+}
+
 /*
  ********************************************************************************
  * XB_ControlAction
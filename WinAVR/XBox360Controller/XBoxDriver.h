@@ -50,6 +50,9 @@
 #define XB_GetTableEnabled(t,v) (_BV(t)&(v))
 #define XB_SetTableEnabled(a)   
 
+#define XB_BUTTON_COUNT         15
+#define XB_CONTROL_COUNT        6
+
 #define POT1                    1
 #define POT2                    2
 
@@ -112,5 +115,6 @@ extern void XB_Init( void );
 void XB_EnableCalibration( uint8_t state );
 extern void XB_XBoxAction( uint16_t event, uint16_t action );
 extern void XB_SetIsWireless( uint8_t state );
+extern void XB_SetState( uint16_t pressed, uint8_t *wipers );
 
 #endif